@@ -1,12 +1,23 @@
 import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.input.MouseButton;
+import javafx.scene.input.MouseEvent;
+import javafx.scene.input.ScrollEvent;
 import javafx.scene.paint.Color;
 
+import java.util.ArrayList;
+
 /**
- * Custom Canvas class for displaying animation visuals.
+ * Custom Canvas class for displaying animation visuals through a pan/zoom camera onto the world.
  */
 public class AnimatedCanvas extends Canvas {
+    private static final double ZOOM_STEP = 1.1;
+
     private Color opaqueColor = Color.color(0, 0, 0, 0.5);
     private AnimationDriver driver;
+    private Camera camera = new Camera(0, 0, 1);
+    private double panX;
+    private double panY;
 
     /**
      * Constructor.
@@ -15,15 +26,16 @@ public class AnimatedCanvas extends Canvas {
      */
     public AnimatedCanvas(double width, double height) {
         super(width, height);
-        driver = new AnimationDriver(this);
+        driver = new AnimationDriver(width, height);
         clear();
 
-        // Map mouse events on the canvas to the animation driver.
+        // Map mouse events on the canvas to the animation driver, or to the camera for the middle button.
         setOnMouseClicked(e -> driver.onClicked(e));
-        setOnMouseDragged(e -> driver.onDragged(e));
-        setOnMousePressed(e -> driver.onPressed(e));
-        setOnMouseReleased(e -> driver.onReleased(e));
-        setOnMouseMoved(e -> driver.onMoved(e));
+        setOnMouseDragged(this::onDragged);
+        setOnMousePressed(this::onPressed);
+        setOnMouseReleased(this::onReleased);
+        setOnMouseMoved(e -> driver.onMoved(camera.toWorldX(e.getX()), camera.toWorldY(e.getY())));
+        setOnScroll(this::onScroll);
     }
 
     /**
@@ -58,6 +70,98 @@ public class AnimatedCanvas extends Canvas {
     public void step() {
         partialClear();
         driver.run();
+        render();
+    }
+
+    /**
+     * Draw the particles inside the visible part of the world.
+     */
+    private void render() {
+        GraphicsContext gc = getGraphicsContext2D();
+        ArrayList<Particle> particles = driver.getParticles();
+        double particleSize = driver.getParticleSize();
+        double size = particleSize * camera.getZoom();
+
+        // Only query the grid cells inside the viewport, padded so partially visible particles are drawn
+        double minX = camera.toWorldX(0) - particleSize;
+        double minY = camera.toWorldY(0) - particleSize;
+        double maxX = camera.toWorldX(getWidth()) + particleSize;
+        double maxY = camera.toWorldY(getHeight()) + particleSize;
+
+        // The grid clamps queries to its edge cells, so a viewport panned off the world would still draw them
+        if (maxX < 0 || maxY < 0 || minX > driver.getWorldWidth() || minY > driver.getWorldHeight()) {
+            return;
+        }
+
+        driver.getGrid().query(minX, minY, maxX, maxY, i -> {
+            Particle p = particles.get(i);
+            double x = camera.toScreenX(p.pos.x);
+            double y = camera.toScreenY(p.pos.y);
+
+            // Draw the particle, using a single pixel if it is too small
+            if (size >= 1) {
+                gc.setFill(p.color);
+                gc.fillOval(x - size, y - size, 2 * size, 2 * size);
+            } else if (x >= 0 && y >= 0 && x < getWidth() && y < getHeight()) {
+                gc.getPixelWriter().setColor((int)x, (int)y, p.color);
+            }
+        });
+    }
+
+    /**
+     * Handles pressed events, starting a pan for the middle button.
+     * @param e The event.
+     */
+    private void onPressed(MouseEvent e) {
+        if (e.getButton() == MouseButton.MIDDLE) {
+            panX = e.getX();
+            panY = e.getY();
+        } else {
+            driver.onPressed(e);
+        }
+    }
+
+    /**
+     * Handles released events.
+     * @param e The event.
+     */
+    private void onReleased(MouseEvent e) {
+        if (e.getButton() != MouseButton.MIDDLE) {
+            driver.onReleased(e);
+        }
+    }
+
+    /**
+     * Handles dragged events, panning the camera for the middle button.
+     * @param e The event.
+     */
+    private void onDragged(MouseEvent e) {
+        if (e.isMiddleButtonDown()) {
+            camera.pan(e.getX() - panX, e.getY() - panY);
+            panX = e.getX();
+            panY = e.getY();
+        } else {
+            driver.onDragged(camera.toWorldX(e.getX()), camera.toWorldY(e.getY()));
+        }
+    }
+
+    /**
+     * Handles scroll events, zooming the camera around the mouse.
+     * @param e The event.
+     */
+    private void onScroll(ScrollEvent e) {
+        if (e.getDeltaY() == 0) {
+            return;
+        }
+
+        camera.zoomAt(e.getDeltaY() > 0 ? ZOOM_STEP : 1 / ZOOM_STEP, e.getX(), e.getY());
+    }
+
+    /**
+     * Center the camera on the middle of the world.
+     */
+    public void resetCamera() {
+        camera.centerOn(driver.getWorldWidth() / 2, driver.getWorldHeight() / 2, getWidth(), getHeight());
     }
 
     public void setFrameOpacity(double opacity) {
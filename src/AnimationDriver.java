@@ -3,133 +3,305 @@ import javafx.scene.input.MouseEvent;
 import javafx.scene.paint.Color;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.function.IntConsumer;
 
 /**
- * Controller class for all animation visuals.
+ * Controller class for all animation logic, in world coordinates independent of the canvas.
  */
 public class AnimationDriver implements Runnable {
-    private final Vector2D SHAPE_CENTER = new Vector2D(400, 400);
+    private static final Comparator<Particle> BY_ID = Comparator.comparingInt(p -> p.id);
+    private static final double SKIP_SLEEPING_FRACTION = 0.3;     // Fraction of sleeping particles above which collisions skip them
 
     /** User-controllable Parameters **/
+    private double worldWidth;                  // Width of the world particles move in
+    private double worldHeight;                 // Height of the world particles move in
+
     private double shapeRadius = 300;           // Radius of the shape created on double-left/right-click
     private double shapeAngle = 0;              // Angle to rotate the square
-    private double shapeForce = 1.2;            // Force of particle attraction to shape location
-    private double shapeElasticity = 0.03;      // How strongly the shape force is applied to particles
-    private double shapeExponent = 0.2;         // Controls how distance affects the shape force
-
-    private double magnetRadius = 100;          // Radius of the magnet on left/right-click
-    private double magnetForce = 0.3;           // Force of particle attraction to mouse location
 
     private int particleNum = 500;              // Number of particles in the scene
     private double particleSize = 1;            // Size of the particles in pixels
     private double particleElasticity = 0.999;  // How elastic particle collisions are (1 = fully elastic)
     private double startingVelocity = 1;        // The maximum magnitude of initial velocities
     private boolean particleCollisions = true;  // Whether particle collisions are enabled
+    // Whether to cache collision candidates between frames (velocity engine only). Off by default, since the lists
+    // rebuild almost every frame unless particles move well under half the skin per frame, as when slow or settled
+    private boolean neighborLists = false;
+    private double neighborSkin = 2;            // Extra distance kept in the cached candidates
+    private boolean mortonOrdering = true;      // Whether to periodically sort particle storage by position
+    private int reorderInterval = 30;           // Frames between checks of the particle storage order
+    private double reorderThreshold = 0.1;      // Disorder at which a check reorders the particles (0 = always)
+
+    private boolean positionBased = false;      // Whether to use the position-based dynamics engine
+    private int solverIterations = 4;           // Number of constraint iterations per position-based step
+    private double timeStep = 1;                // Simulated time per position-based step, in frames
 
-    private AnimatedCanvas canvas;
     private ArrayList<Particle> particles = new ArrayList<>(particleNum);
-    private Vector2D mousePos = new Vector2D(Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY);
-    private boolean magnetized = false;
+    private Random random = new Random();
     private boolean circlize = false;
     private boolean squarize = false;
 
+    /** Force Modules **/
+    private WallReflection walls;
+    private ShapeForce shape = new ShapeForce();
+    private MagnetForce magnet = new MagnetForce();
+    private DragForce drag = new DragForce();
+    private GravityForce gravity = new GravityForce();
+    private ArrayList<ForceModule> forces = new ArrayList<>();  // Forces acting freely on particles, in order
+    private ForceModule[] activeForces = new ForceModule[0];    // Forces applied in the current frame
+
+    private SpatialGrid grid = new SpatialGrid();
+    private int[] candidates = new int[16];     // Indices of particles near the particle being collided
+    private int[] candidatesTmp = new int[16];  // Merge buffer for sorting the candidates
+    private int candidateCount = 0;
+    private int candidateMinIndex = 0;          // Only indices above this are collected as candidates
+    private boolean candidateSleeping = false;  // Whether earlier sleeping particles are also collected
+    private boolean[] asleepAtStart = new boolean[0];   // Which particles were asleep when the collision pass began
+    private IntConsumer collectCandidate = this::collectCandidate;
+    private long collisionCount = 0;            // Number of colliding pairs since initialization
+    private NeighborList neighborList = new NeighborList();
+    private MortonOrder mortonOrder = new MortonOrder();
+    private int framesSinceReorder = 0;
+    private int nextParticleId = 0;
+    private ArrayList<Particle> creationOrder = new ArrayList<>();   // Particles sorted by id, for assigning shapes
+
     /**
      * Constructor.
-     * @param canvas The canvas on which to draw all animation visuals.
+     * @param worldWidth The width of the world.
+     * @param worldHeight The height of the world.
      */
-    public AnimationDriver(AnimatedCanvas canvas) {
-        this.canvas = canvas;
+    public AnimationDriver(double worldWidth, double worldHeight) {
+        this.worldWidth = worldWidth;
+        this.worldHeight = worldHeight;
+
+        walls = new WallReflection(worldWidth, worldHeight);
+        walls.setElasticity(particleElasticity);
+        forces.add(magnet);
+        forces.add(drag);
+        forces.add(gravity);
     }
 
     /**
      * Generate all particles and reset internal parameters.
      */
     public void initialize() {
-        particles.clear();
-        magnetized = false;
+        magnet.setActive(false);
         circlize = false;
         squarize = false;
+        shape.setActive(false);
+        collisionCount = 0;
+        framesSinceReorder = 0;
+        neighborList.invalidate();
+
+        // Put reordered particles back in creation order, so a seeded run starts the same as on a new driver
+        particles.sort(BY_ID);
+
+        // Reuse the existing particles where possible, so repeated runs don't reallocate them
+        if (particles.size() > particleNum) {
+            particles.subList(particleNum, particles.size()).clear();
+        }
 
         for (int i = 0; i < particleNum; i++) {
-            particles.add(generateParticle());
+            if (i < particles.size()) {
+                resetParticle(particles.get(i));
+            } else {
+                particles.add(generateParticle());
+            }
         }
+
+        grid.build(particles, worldWidth, worldHeight, 2 * particleSize);
     }
 
     /**
-     * Applies all frame-by-frame logic.
+     * Applies all frame-by-frame logic. Afterwards, the spatial grid holds the final particle positions.
      */
     public void run() {
-        // Draw and update each and every particle
-        // and check for boundary collisions
+        if (mortonOrdering) {
+            reorderParticles();
+        }
+
+        // Advance the simulation using the selected engine
+        if (positionBased) {
+            stepPositionBased();
+        } else {
+            stepVelocityBased();
+        }
+    }
+
+    /**
+     * Advance one frame by integrating each particle and applying every active force to it in a single pass,
+     * then resolving collisions pair by pair.
+     */
+    private void stepVelocityBased() {
+        // Walls and the shape always come first, so they are applied before the free forces
+        int activeCount = collectActiveForces(walls, shape);
+
         for (Particle p : particles) {
+            // Sleeping particles are at rest, so only forces that wake them are applied
+            if (p.asleep) {
+                for (int i = 0; i < activeCount; i++) {
+                    if (activeForces[i].wakes(p)) {
+                        activeForces[i].apply(p, 1);
+                    }
+                }
+                continue;
+            }
+
             // Apply velocity to position
             p.update();
 
-            // Check for x/y collisions, reversing velocity as needed
-            // and resetting positions
-            if (p.pos.x > canvas.getWidth() - 1 || p.pos.x < 0) {
-                p.pos.x = Math.min(canvas.getWidth() - 1, Math.max(0, p.pos.x));
-                p.vel.x *= -particleElasticity;
+            for (int i = 0; i < activeCount; i++) {
+                activeForces[i].apply(p, 1);
             }
+        }
 
-            if (p.pos.y > canvas.getHeight() - 1 || p.pos.y < 0) {
-                p.pos.y = Math.min(canvas.getHeight() - 1, Math.max(0, p.pos.y));
-                p.vel.y *= -particleElasticity;
+        // Positions are final for this frame, so index them for collisions and rendering
+        grid.build(particles, worldWidth, worldHeight, 2 * particleSize);
+
+        // If collisions enabled, check all particles for collisions
+        if (particleCollisions) {
+            if (neighborLists) {
+                updateNeighborList();
             }
 
-            // Draw the particle, using a single pixel if it is too small
-            if (particleSize >= 1) {
-                canvas.getGraphicsContext2D().setFill(p.color);
-                canvas.getGraphicsContext2D().fillOval(p.pos.x - particleSize, p.pos.y - particleSize,
-                        2 * particleSize, 2 * particleSize);
-            } else {
-                canvas.getGraphicsContext2D().getPixelWriter().setColor(
-                        (int)p.pos.x,
-                        (int)p.pos.y,
-                        p.color
-                );
+            checkCollisions();
+        }
+    }
+
+    /**
+     * Advance one frame of timeStep with position-based dynamics. Particles are moved to
+     * predicted positions, the shape, collision and wall constraints are solved on those
+     * positions over several iterations, and velocities are derived from the corrected motion.
+     * Shape attachment is controlled by shapeElasticity alone, as the fraction of the
+     * remaining distance closed per unit of time.
+     */
+    private void stepPositionBased() {
+        double dt = timeStep;
+
+        // The shape and walls are solved as constraints, so only the free forces are applied
+        int activeCount = collectActiveForces();
+
+        // Apply external forces and predict new positions
+        for (Particle p : particles) {
+            for (int i = 0; i < activeCount; i++) {
+                if (!p.asleep || activeForces[i].wakes(p)) {
+                    activeForces[i].apply(p, dt);
+                }
             }
+
+            // Sleeping particles also record their position, in case a collision wakes them during the step
+            p.prevPos.x = p.pos.x;
+            p.prevPos.y = p.pos.y;
+
+            if (p.asleep) {
+                continue;
+            }
+
+            // Work on components in place, since this runs for every particle
+            p.pos.x += p.vel.x * dt;
+            p.pos.y += p.vel.y * dt;
         }
 
-        // If shape formation is active, apply a force pulling
-        // particles to their designated positions within the shape.
-        if (circlize || squarize) {
+        // Fraction of the shape distance closed per iteration, chosen so the total
+        // pull over one step only depends on the time step and not on the iteration count
+        double shapeStiffness = 1 - Math.pow(1 - Math.min(1, shape.getElasticity()), dt / solverIterations);
+
+        for (int i = 0; i < solverIterations; i++) {
+            if (circlize || squarize) {
+                for (Particle p : particles) {
+                    if (!p.asleep) {
+                        p.pos.x += (p.stickyPos.x - p.pos.x) * shapeStiffness;
+                        p.pos.y += (p.stickyPos.y - p.pos.y) * shapeStiffness;
+                    }
+                }
+            }
+
+            if (particleCollisions) {
+                grid.build(particles, worldWidth, worldHeight, 2 * particleSize);
+                solveCollisionConstraints();
+            }
+
+            // Keep particles inside the world
             for (Particle p : particles) {
-                // Calculate "optimal" velocity vector
-                Vector2D posDiff = p.stickyPos.sub(p.pos);
+                p.pos.x = Math.min(worldWidth - 1, Math.max(0, p.pos.x));
+                p.pos.y = Math.min(worldHeight - 1, Math.max(0, p.pos.y));
+            }
+        }
+
+        grid.build(particles, worldWidth, worldHeight, 2 * particleSize);
 
-                // Partially normalize velocity vector
-                posDiff = posDiff.multiply(shapeForce / Math.pow(posDiff.dot(posDiff), shapeExponent));
+        // Derive velocities from the corrected motion
+        double invDt = 1 / dt;
+        for (Particle p : particles) {
+            if (p.asleep) {
+                continue;
+            }
 
-                // Find difference between desired velocity and current particle velocity
-                Vector2D velDiff = posDiff.sub(p.vel);
+            p.vel.x = (p.pos.x - p.prevPos.x) * invDt;
+            p.vel.y = (p.pos.y - p.prevPos.y) * invDt;
 
-                // Add a portion of the difference
-                p.vel = p.vel.add(velDiff.multiply(shapeElasticity));
+            // Reflect velocities of particles resting against the walls
+            if ((p.pos.x >= worldWidth - 1 && p.vel.x > 0) || (p.pos.x <= 0 && p.vel.x < 0)) {
+                p.vel.x *= -particleElasticity;
+            }
+
+            if ((p.pos.y >= worldHeight - 1 && p.vel.y > 0) || (p.pos.y <= 0 && p.vel.y < 0)) {
+                p.vel.y *= -particleElasticity;
+            }
+
+            if (shape.isActive()) {
+                shape.updateSleep(p);
             }
         }
+    }
 
-        // If magnetism is active, apply a force pulling
-        // particles to the user's current mouse position.
-        if (magnetized) {
-            for (Particle p : particles) {
-                // Calculate "optimal" velocity vector
-                Vector2D posDiff = mousePos.sub(p.pos);
+    /**
+     * Every reorderInterval frames, sort the particles along a Morton curve if their storage order
+     * has drifted far enough from their positions, so particles near each other are near in memory.
+     * Everything a particle carries moves with it, but the particle indices change.
+     */
+    private void reorderParticles() {
+        if (++framesSinceReorder < reorderInterval) {
+            return;
+        }
 
-                // Find distance squared between particle and mouse position
-                double distanceSq = posDiff.dot(posDiff);
+        framesSinceReorder = 0;
 
-                // If within radius, apply a normalized velocity towards the mouse, independent of distance
-                if (distanceSq < magnetRadius * magnetRadius) {
-                    p.vel = p.vel.add(posDiff.multiply(magnetForce / Math.sqrt(distanceSq)));
-                }
+        if (mortonOrder.measureDisorder(particles, worldWidth, worldHeight) >= reorderThreshold) {
+            mortonOrder.reorder(particles);
+
+            // The neighbor lists and grid refer to particles by index, and the grid is rebuilt every step
+            neighborList.invalidate();
+        }
+    }
+
+    /**
+     * Gather the active forces for this frame.
+     * @param first Forces to consider before the free forces.
+     * @return The number of active forces.
+     */
+    private int collectActiveForces(ForceModule... first) {
+        if (activeForces.length < first.length + forces.size()) {
+            activeForces = new ForceModule[first.length + forces.size()];
+        }
+
+        int count = 0;
+        for (ForceModule force : first) {
+            if (force.isActive()) {
+                activeForces[count++] = force;
             }
         }
 
-        // If collisions enabled, check all particles for collisions
-        if (particleCollisions) {
-            checkCollisions();
+        for (ForceModule force : forces) {
+            if (force.isActive()) {
+                activeForces[count++] = force;
+            }
         }
+
+        return count;
     }
 
     /**
@@ -138,67 +310,266 @@ public class AnimationDriver implements Runnable {
      */
     private Particle generateParticle() {
         Particle p = new Particle();
-        p.pos.x = Math.random() * canvas.getWidth();
-        p.pos.y = Math.random() * canvas.getHeight();
+        p.id = nextParticleId++;
+        resetParticle(p);
+        return p;
+    }
+
+    /**
+     * Give a particle a new random position, velocity and color.
+     * @param p The particle to reset.
+     */
+    private void resetParticle(Particle p) {
+        p.pos.x = random.nextDouble() * worldWidth;
+        p.pos.y = random.nextDouble() * worldHeight;
         p.vel = new Vector2D(
-                (Math.random() - 0.5) * 2 * startingVelocity,
-                (Math.random() - 0.5) * 2 * startingVelocity
+                (random.nextDouble() - 0.5) * 2 * startingVelocity,
+                (random.nextDouble() - 0.5) * 2 * startingVelocity
         );
-        p.color = Color.color(Math.random(), Math.random(), Math.random());
-        return p;
+        p.color = Color.color(random.nextDouble(), random.nextDouble(), random.nextDouble());
+        p.stickyPos.x = 0;
+        p.stickyPos.y = 0;
+        p.wake();
     }
 
     /**
-     * Iterate over the list and compare every pair of particles.
+     * Compare every pair of particles close enough to collide, where at least one was awake when the pass began.
+     * Once enough particles sleep, sleeping particles are skipped entirely and their pairs with awake particles
+     * are handled from the awake side, so each awake particle visits earlier sleeping particles, then later
+     * particles, in ascending order. Otherwise every particle visits later particles, as if none were asleep.
      */
     private void checkCollisions() {
-        // Keeping list of compared particles reduces a bit of runtime
-        ArrayList<Particle> toQuery = new ArrayList<>(particles);
+        boolean skipSleeping = recordSleeping();
 
-        for (Particle p1 : particles) {
-            toQuery.remove(p1);
+        for (int i = 0; i < particles.size(); i++) {
+            if (skipSleeping && asleepAtStart[i]) {
+                continue;
+            }
+
+            Particle p1 = particles.get(i);
+            boolean sleeping = asleepAtStart[i];
             boolean collided = false;
 
-            for (Particle p2 : toQuery) {
-                Vector2D posDiff = p1.pos.sub(p2.pos);
-                double distanceSq = posDiff.dot(posDiff);
+            int from = 0;
+            int to;
+            if (neighborLists) {
+                from = skipSleeping ? neighborList.start(i) : neighborList.split(i);
+                to = neighborList.end(i);
+            } else {
+                findCandidates(i, 2 * particleSize, skipSleeping);
+                to = candidateCount;
+            }
+
+            for (int k = from; k < to; k++) {
+                int j = neighborLists ? neighborList.neighbor(k) : candidates[k];
+
+                // Pairs with earlier awake particles were handled on their turn, and sleeping particles
+                // never move into each other
+                if ((j < i && !asleepAtStart[j]) || (sleeping && asleepAtStart[j])) {
+                    continue;
+                }
+
+                Particle p2 = particles.get(j);
+
+                // Work on components in place, since this runs for every candidate pair
+                double dx = p1.pos.x - p2.pos.x;
+                double dy = p1.pos.y - p2.pos.y;
+                double distanceSq = dx * dx + dy * dy;
 
                 // If other particle is close enough to current particle,
                 // do a bunch of velocity calculations (assuming same mass and whatnot)
                 if (distanceSq <= (particleSize * particleSize * 4) && distanceSq > 0) {
                     collided = true;
-                    double dot = p1.vel.sub(p2.vel).dot(posDiff) / distanceSq;
-                    Vector2D velDiff = posDiff.multiply(dot);
-
-                    Vector2D newVel1 = p1.vel.sub(velDiff);
-                    Vector2D newVel2 = p2.vel.add(velDiff);
-
-                    p1.vel = newVel1;
-                    p2.vel = newVel2;
+                    collisionCount++;
+                    p1.wake();
+                    p2.wake();
+
+                    double dot = ((p1.vel.x - p2.vel.x) * dx + (p1.vel.y - p2.vel.y) * dy) / distanceSq;
+                    double velDiffX = dx * dot;
+                    double velDiffY = dy * dot;
+
+                    p1.vel.x -= velDiffX;
+                    p1.vel.y -= velDiffY;
+                    p2.vel.x += velDiffX;
+                    p2.vel.y += velDiffY;
                 }
             }
 
             // If a collision occurred at any point, apply particleElasticity
             if (collided) {
-                p1.vel = p1.vel.multiply(particleElasticity);
+                p1.vel.x *= particleElasticity;
+                p1.vel.y *= particleElasticity;
+            }
+        }
+    }
+
+    /**
+     * Push apart every pair of overlapping particles so they are exactly touching.
+     * Candidates always come from the grid, not the neighbor lists. The corrections move particles
+     * during the pass, so which nearby pairs are found depends on how candidates were gathered,
+     * and the cached lists would give different results than the grid.
+     */
+    private void solveCollisionConstraints() {
+        double minDistance = 2 * particleSize;
+        boolean skipSleeping = recordSleeping();
+
+        // Sleeping particles are handled as in checkCollisions
+        for (int i = 0; i < particles.size(); i++) {
+            if (skipSleeping && asleepAtStart[i]) {
+                continue;
+            }
+
+            Particle p1 = particles.get(i);
+            boolean sleeping = asleepAtStart[i];
+
+            findCandidates(i, minDistance, skipSleeping);
+
+            for (int k = 0; k < candidateCount; k++) {
+                int j = candidates[k];
+
+                // Pairs with earlier awake particles were handled on their turn, and sleeping particles
+                // never move into each other
+                if ((j < i && !asleepAtStart[j]) || (sleeping && asleepAtStart[j])) {
+                    continue;
+                }
+
+                Particle p2 = particles.get(j);
+
+                // Work on components in place, since this runs for every candidate pair in every iteration
+                double dx = p1.pos.x - p2.pos.x;
+                double dy = p1.pos.y - p2.pos.y;
+                double distanceSq = dx * dx + dy * dy;
+
+                if (distanceSq < minDistance * minDistance && distanceSq > 0) {
+                    collisionCount++;
+                    p1.wake();
+                    p2.wake();
+
+                    // Move each particle half of the overlap along the line between them
+                    double distance = Math.sqrt(distanceSq);
+                    double scale = (minDistance - distance) / (2 * distance);
+                    double correctionX = dx * scale;
+                    double correctionY = dy * scale;
+
+                    p1.pos.x += correctionX;
+                    p1.pos.y += correctionY;
+                    p2.pos.x -= correctionX;
+                    p2.pos.y -= correctionY;
+                }
             }
         }
     }
 
+    /**
+     * Record which particles are asleep before a collision pass, since collisions wake particles during it.
+     * Skipping sleeping particles makes awake particles visit earlier particles too, which only pays off
+     * once a large enough fraction of particles is asleep.
+     * @return Whether the pass should skip sleeping particles.
+     */
+    private boolean recordSleeping() {
+        int n = particles.size();
+        if (asleepAtStart.length < n) {
+            asleepAtStart = new boolean[n];
+        }
+
+        int sleeping = 0;
+        for (int i = 0; i < n; i++) {
+            asleepAtStart[i] = particles.get(i).asleep;
+            if (asleepAtStart[i]) {
+                sleeping++;
+            }
+        }
+
+        return sleeping > 0 && sleeping >= SKIP_SLEEPING_FRACTION * n;
+    }
+
+    /**
+     * Rebuild the cached neighbor lists if any particle has moved too far since they were built.
+     * The spatial grid must already hold the current positions.
+     */
+    private void updateNeighborList() {
+        if (neighborList.needsRebuild(particles, 2 * particleSize, neighborSkin)) {
+            neighborList.build(particles, grid, 2 * particleSize, neighborSkin);
+        }
+    }
+
+    /**
+     * Collect the indices of later particles in the grid cells within range of a particle, in ascending order.
+     * @param index The index of the particle.
+     * @param range The distance to search.
+     * @param sleeping Whether to also collect earlier particles that were asleep when the pass began.
+     */
+    private void findCandidates(int index, double range, boolean sleeping) {
+        Vector2D pos = particles.get(index).pos;
+
+        candidateCount = 0;
+        candidateMinIndex = index;
+        candidateSleeping = sleeping;
+        grid.query(pos.x - range, pos.y - range, pos.x + range, pos.y + range, collectCandidate);
+        candidatesTmp = SpatialGrid.sortIndices(candidates, candidateCount, candidatesTmp);
+    }
+
+    /**
+     * Add a particle index to the candidates, if it comes after the particle being collided,
+     * or before it while asleep when earlier sleeping particles are collected.
+     * @param index The particle index.
+     */
+    private void collectCandidate(int index) {
+        if (index == candidateMinIndex || (index < candidateMinIndex && !(candidateSleeping && asleepAtStart[index]))) {
+            return;
+        }
+
+        if (candidateCount == candidates.length) {
+            candidates = Arrays.copyOf(candidates, 2 * candidateCount);
+        }
+
+        candidates[candidateCount++] = index;
+    }
+
+    /**
+     * Wake every particle, since the conditions they settled under have changed.
+     */
+    private void wakeAll() {
+        for (Particle p : particles) {
+            p.wake();
+        }
+    }
+
+    /**
+     * Get the center of the shapes, which is the center of the world.
+     * @return The shape center.
+     */
+    private Vector2D getShapeCenter() {
+        return new Vector2D(worldWidth / 2, worldHeight / 2);
+    }
+
+    /**
+     * Get the particles in the order they were created, regardless of how they are stored.
+     * @return The particles sorted by id.
+     */
+    private ArrayList<Particle> getCreationOrder() {
+        creationOrder.clear();
+        creationOrder.addAll(particles);
+        creationOrder.sort(BY_ID);
+        return creationOrder;
+    }
+
     /**
      * Generate the circle shape for every particle.
      */
     private void generateCircle() {
         double currentAngle = 0;
         double deltaTheta = 2 * Math.PI / particleNum;
+        ArrayList<Particle> ordered = getCreationOrder();
+        wakeAll();
 
         // Just loop a full cycle around a circle and set stickyPos
         // of each particle to the corresponding position on the circle.
         for (int i = 0; i < particleNum; i++) {
-            particles.get(i).stickyPos = new Vector2D(
+            ordered.get(i).stickyPos = new Vector2D(
                     Math.sin(currentAngle),
                     Math.cos(currentAngle)
-            ).multiply(shapeRadius).add(SHAPE_CENTER);
+            ).multiply(shapeRadius).add(getShapeCenter());
             currentAngle -= deltaTheta;
         }
     }
@@ -210,10 +581,12 @@ public class AnimationDriver implements Runnable {
         // Start at the bottom right corner
         Vector2D currentPos = new Vector2D(shapeRadius, shapeRadius);
         double deltaLength = 8 * shapeRadius / particleNum;
+        ArrayList<Particle> ordered = getCreationOrder();
+        wakeAll();
 
         for (int i = 0; i < particleNum; i++) {
             // Rotate position by shapeAngle to get the rotated square shape
-            particles.get(i).stickyPos = currentPos.rotate(shapeAngle).add(SHAPE_CENTER);
+            ordered.get(i).stickyPos = currentPos.rotate(shapeAngle).add(getShapeCenter());
 
             // Start moving left, up, right, down, to make full square
             switch (i * 4 / particleNum) {
@@ -233,21 +606,43 @@ public class AnimationDriver implements Runnable {
     public void onClicked(MouseEvent e) {
         // If detected double/quadruple/etc. click, handle shape logic
         if (e.getClickCount() % 2 == 0) {
-            // If LMB, prepare to create circle out of particles
+            // If LMB, create circle out of particles
             if (e.getButton() == MouseButton.PRIMARY) {
-                circlize = !circlize;
-                squarize = false;
-            // If RMB, prepare to create square out of particles
+                toggleCircle();
+            // If RMB, create square out of particles
             } else if (e.getButton() == MouseButton.SECONDARY) {
-                squarize = !squarize;
-                circlize = false;
+                toggleSquare();
             }
+        }
+    }
 
-            if (circlize) {
-                generateCircle();
-            } else if (squarize) {
-                generateSquare();
-            }
+    /**
+     * Start or stop forming a circle out of the particles.
+     */
+    public void toggleCircle() {
+        circlize = !circlize;
+        squarize = false;
+        shape.setActive(circlize);
+
+        if (circlize) {
+            generateCircle();
+        } else {
+            wakeAll();
+        }
+    }
+
+    /**
+     * Start or stop forming a square out of the particles.
+     */
+    public void toggleSquare() {
+        squarize = !squarize;
+        circlize = false;
+        shape.setActive(squarize);
+
+        if (squarize) {
+            generateSquare();
+        } else {
+            wakeAll();
         }
     }
 
@@ -256,7 +651,7 @@ public class AnimationDriver implements Runnable {
      * @param e The event.
      */
     public void onPressed(MouseEvent e) {
-        magnetized = true;
+        magnet.setActive(true);
     }
 
     /**
@@ -264,28 +659,82 @@ public class AnimationDriver implements Runnable {
      * @param e The event.
      */
     public void onReleased(MouseEvent e) {
-        magnetized = false;
+        magnet.setActive(false);
     }
 
     /**
      * Handles dragged events for the canvas.
-     * @param e The event.
+     * @param x The world x coordinate of the mouse.
+     * @param y The world y coordinate of the mouse.
      */
-    public void onDragged(MouseEvent e) {
-        mousePos.x = e.getX();
-        mousePos.y = e.getY();
+    public void onDragged(double x, double y) {
+        magnet.setPosition(x, y);
     }
 
     /**
      * Handles moved events for the canvas.
-     * @param e The event.
+     * @param x The world x coordinate of the mouse.
+     * @param y The world y coordinate of the mouse.
      */
-    public void onMoved(MouseEvent e) {
-        mousePos.x = e.getX();
-        mousePos.y = e.getY();
+    public void onMoved(double x, double y) {
+        magnet.setPosition(x, y);
+    }
+
+    /** GETTERS **/
+    public ArrayList<Particle> getParticles() {
+        return particles;
+    }
+
+    public SpatialGrid getGrid() {
+        return grid;
+    }
+
+    public double getParticleSize() {
+        return particleSize;
+    }
+
+    public double getWorldWidth() {
+        return worldWidth;
+    }
+
+    public double getWorldHeight() {
+        return worldHeight;
+    }
+
+    public long getCollisionCount() {
+        return collisionCount;
+    }
+
+    public NeighborList getNeighborList() {
+        return neighborList;
+    }
+
+    public MortonOrder getMortonOrder() {
+        return mortonOrder;
     }
 
     /** SETTERS **/
+    public void setSeed(long seed) {
+        random.setSeed(seed);
+    }
+
+    public void setMagnetized(boolean magnetized) {
+        magnet.setActive(magnetized);
+    }
+
+    public void setWorldSize(double worldWidth, double worldHeight) {
+        this.worldWidth = worldWidth;
+        this.worldHeight = worldHeight;
+        walls.setSize(worldWidth, worldHeight);
+
+        // Regenerate the shape, since the world center has moved
+        if (circlize) {
+            generateCircle();
+        } else if (squarize) {
+            generateSquare();
+        }
+    }
+
     public void setShapeRadius(double shapeRadius) {
         this.shapeRadius = shapeRadius;
 
@@ -307,23 +756,26 @@ public class AnimationDriver implements Runnable {
     }
 
     public void setShapeForce(double shapeForce) {
-        this.shapeForce = shapeForce;
+        shape.setForce(shapeForce);
+        wakeAll();
     }
 
     public void setShapeElasticity(double shapeElasticity) {
-        this.shapeElasticity = shapeElasticity;
+        shape.setElasticity(shapeElasticity);
+        wakeAll();
     }
 
     public void setShapeExponent(double shapeExponent) {
-        this.shapeExponent = shapeExponent;
+        shape.setExponent(shapeExponent);
+        wakeAll();
     }
 
     public void setMagnetRadius(double magnetRadius) {
-        this.magnetRadius = magnetRadius;
+        magnet.setRadius(magnetRadius);
     }
 
     public void setMagnetForce(double magnetForce) {
-        this.magnetForce = magnetForce;
+        magnet.setForce(magnetForce);
     }
 
     public void setParticleNum(int particleNum) {
@@ -334,10 +786,16 @@ public class AnimationDriver implements Runnable {
             particles.add(generateParticle());
         }
 
-        while (particles.size() > particleNum) {
-            particles.remove(particles.get(0));
+        // Trim the oldest particles, wherever reordering has moved them
+        if (particles.size() > particleNum) {
+            particles.sort(BY_ID);
+            particles.subList(0, particles.size() - particleNum).clear();
         }
 
+        neighborList.invalidate();
+
+        grid.build(particles, worldWidth, worldHeight, 2 * particleSize);
+
         // Regenerate shape, since particles have been modified
         if (circlize) {
             generateCircle();
@@ -348,17 +806,109 @@ public class AnimationDriver implements Runnable {
 
     public void setParticleSize(double particleSize) {
         this.particleSize = particleSize;
+        wakeAll();
     }
 
     public void setParticleElasticity(double particleElasticity) {
         this.particleElasticity = particleElasticity;
+        walls.setElasticity(particleElasticity);
+        wakeAll();
+    }
+
+    public void setNeighborLists(boolean neighborLists) {
+        this.neighborLists = neighborLists;
+    }
+
+    public void setNeighborSkin(double neighborSkin) {
+        // A negative skin would shrink the lists below the interaction range and miss colliding pairs
+        this.neighborSkin = Math.max(0, neighborSkin);
+    }
+
+    public void setMortonOrdering(boolean mortonOrdering) {
+        this.mortonOrdering = mortonOrdering;
+    }
+
+    public void setReorderInterval(int reorderInterval) {
+        this.reorderInterval = Math.max(1, reorderInterval);
+    }
+
+    public void setReorderThreshold(double reorderThreshold) {
+        this.reorderThreshold = reorderThreshold;
     }
 
     public void setParticleCollisions(boolean particleCollisions) {
         this.particleCollisions = particleCollisions;
+        wakeAll();
     }
 
     public void setStartingVelocity(double startingVelocity) {
         this.startingVelocity = startingVelocity;
     }
+
+    public void setFastMath(boolean fastMath) {
+        shape.setFastMath(fastMath);
+        magnet.setFastMath(fastMath);
+    }
+
+    public void setPositionBased(boolean positionBased) {
+        this.positionBased = positionBased;
+    }
+
+    public void setSolverIterations(int solverIterations) {
+        this.solverIterations = Math.max(1, solverIterations);
+    }
+
+    public void setTimeStep(double timeStep) {
+        // Velocities are derived by dividing by the time step, so it must stay positive
+        this.timeStep = Math.max(0.01, timeStep);
+    }
+
+    public void setParticleSleeping(boolean particleSleeping) {
+        shape.setSleeping(particleSleeping);
+
+        // Sleeping particles would otherwise stay frozen forever
+        if (!particleSleeping) {
+            wakeAll();
+        }
+    }
+
+    public void setSleepVelocity(double sleepVelocity) {
+        shape.setSleepVelocity(sleepVelocity);
+    }
+
+    public void setSleepDistance(double sleepDistance) {
+        shape.setSleepDistance(sleepDistance);
+    }
+
+    public void setSleepFrames(int sleepFrames) {
+        shape.setSleepFrames(sleepFrames);
+    }
+
+    public void setDrag(double drag) {
+        this.drag.setDrag(drag);
+        wakeAll();
+    }
+
+    public void setGravity(double x, double y) {
+        gravity.setGravity(x, y);
+        wakeAll();
+    }
+
+    /**
+     * Add a force acting on every particle, applied after the built-in forces.
+     * @param force The force.
+     */
+    public void addForce(ForceModule force) {
+        forces.add(force);
+        wakeAll();
+    }
+
+    /**
+     * Remove a previously added force.
+     * @param force The force.
+     */
+    public void removeForce(ForceModule force) {
+        forces.remove(force);
+        wakeAll();
+    }
 }
@@ -0,0 +1,355 @@
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Headless parameter sweep. Runs many independent seeded simulations of particles forming a shape,
+ * in parallel on a fixed pool with one thread per core, and writes one CSV row of metrics per run.
+ *
+ * Each parameter is given as name=a,b,c to sweep a list of values, or name=min:max to sample a range.
+ * Lists are combined as a full grid, unless --samples is given, in which case every parameter is sampled
+ * randomly for that many runs. Supported parameters are shapeForce, shapeElasticity, shapeExponent,
+ * particleElasticity and magnetForce.
+ *
+ * Usage: java BatchRunner [options] name=values...
+ *   --samples N      Random search with N parameter sets
+ *   --seeds N        Runs per parameter set, each with a different seed (default 1)
+ *   --frames N       Maximum frames per run (default 2000)
+ *   --particles N    Number of particles (default 500)
+ *   --size S         Particle size (default 1)
+ *   --square         Form a square instead of a circle
+ *   --magnetFrames N Hold the magnet at the world center for the first N frames (default 0)
+ *   --tolerance D    Mean distance from the shape that counts as converged (default 2)
+ *   --noEarlyStop    Keep running after convergence
+ *   --threads N      Worker threads (default one per core)
+ *   --out PATH       CSV output path (default batch-results.csv)
+ */
+public class BatchRunner {
+    private static final String[] PARAMETERS = {
+            "shapeForce", "shapeElasticity", "shapeExponent", "particleElasticity", "magnetForce"
+    };
+
+    private Map<String, String> specs = new LinkedHashMap<>();
+    private int samples = 0;
+    private int seeds = 1;
+    private int maxFrames = 2000;
+    private int particleNum = 500;
+    private double particleSize = 1;
+    private boolean square = false;
+    private int magnetFrames = 0;
+    private double tolerance = 2;
+    private boolean earlyStop = true;
+    private int threads = Runtime.getRuntime().availableProcessors();
+    private String outPath = "batch-results.csv";
+
+    // Each worker keeps one driver, so particles are reused between the runs it executes.
+    // The workers already fill every core, so reordering sorts on the worker's own thread
+    private final ThreadLocal<AnimationDriver> drivers = ThreadLocal.withInitial(() -> {
+        AnimationDriver driver = new AnimationDriver(800, 800);
+        driver.getMortonOrder().setParallel(false);
+        return driver;
+    });
+
+    /**
+     * Little tiny main method.
+     * @param args The options and parameter specs.
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        BatchRunner runner = new BatchRunner();
+        List<Map<String, Double>> parameterSets = null;
+
+        try {
+            runner.parse(args);
+            parameterSets = runner.samples > 0 ? runner.sampleParameters() : runner.gridParameters();
+        } catch (IllegalArgumentException ex) {
+            System.out.println("[ERROR]: " + ex.getMessage());
+            System.exit(1);
+        }
+
+        runner.runAll(parameterSets);
+    }
+
+    /**
+     * Read the command line options and parameter specs.
+     * @param args The command line arguments.
+     */
+    private void parse(String[] args) {
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+
+            try {
+                switch (arg) {
+                    case "--samples" -> samples = Integer.parseInt(args[++i]);
+                    case "--seeds" -> seeds = Integer.parseInt(args[++i]);
+                    case "--frames" -> maxFrames = Integer.parseInt(args[++i]);
+                    case "--particles" -> particleNum = Integer.parseInt(args[++i]);
+                    case "--size" -> particleSize = Double.parseDouble(args[++i]);
+                    case "--square" -> square = true;
+                    case "--magnetFrames" -> magnetFrames = Integer.parseInt(args[++i]);
+                    case "--tolerance" -> tolerance = Double.parseDouble(args[++i]);
+                    case "--noEarlyStop" -> earlyStop = false;
+                    case "--threads" -> threads = Integer.parseInt(args[++i]);
+                    case "--out" -> outPath = args[++i];
+                    default -> {
+                        int split = arg.indexOf('=');
+                        if (split < 0 || !List.of(PARAMETERS).contains(arg.substring(0, split))) {
+                            throw new IllegalArgumentException("unknown argument " + arg);
+                        }
+                        specs.put(arg.substring(0, split), arg.substring(split + 1));
+                    }
+                }
+            } catch (NumberFormatException | ArrayIndexOutOfBoundsException ex) {
+                throw new IllegalArgumentException("bad value for " + arg);
+            }
+        }
+
+        // Check counts here, so bad values are reported like parse errors rather than failing inside runAll
+        if (threads < 1) {
+            throw new IllegalArgumentException("--threads must be at least 1");
+        }
+
+        if (samples < 0 || seeds < 0 || maxFrames < 0 || particleNum < 0) {
+            throw new IllegalArgumentException("--samples, --seeds, --frames and --particles must not be negative");
+        }
+    }
+
+    /**
+     * Run every parameter set on the worker pool, and write the results.
+     * @param parameterSets The parameter sets to run, each once per seed.
+     */
+    private void runAll(List<Map<String, Double>> parameterSets) throws IOException, InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<Result>> futures = new ArrayList<>();
+
+        for (Map<String, Double> parameters : parameterSets) {
+            for (int s = 0; s < seeds; s++) {
+                long seed = s;
+                futures.add(executor.submit(() -> run(parameters, seed)));
+            }
+        }
+
+        try (PrintWriter out = new PrintWriter(outPath)) {
+            out.println("run,seed," + String.join(",", specs.keySet())
+                    + ",framesToConverge,frames,collisions,kineticEnergy,meanDistance,elapsedMs");
+
+            // Results are written in submission order, waiting on each run in turn
+            for (int i = 0; i < futures.size(); i++) {
+                Result result = futures.get(i).get();
+                out.println(i + "," + result.toCsv());
+            }
+        } catch (ExecutionException ex) {
+            throw new IllegalStateException("run failed", ex.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+
+        System.out.printf("Wrote %d runs to %s%n", futures.size(), outPath);
+    }
+
+    /**
+     * Build the full grid of listed values.
+     * @return Every combination of parameter values.
+     */
+    private List<Map<String, Double>> gridParameters() {
+        List<Map<String, Double>> sets = new ArrayList<>();
+        sets.add(new LinkedHashMap<>());
+
+        for (Map.Entry<String, String> spec : specs.entrySet()) {
+            if (spec.getValue().contains(":")) {
+                throw new IllegalArgumentException("ranges need --samples: " + spec.getKey());
+            }
+
+            List<Map<String, Double>> expanded = new ArrayList<>();
+            for (Map<String, Double> set : sets) {
+                for (String value : spec.getValue().split(",")) {
+                    Map<String, Double> next = new LinkedHashMap<>(set);
+                    next.put(spec.getKey(), Double.parseDouble(value));
+                    expanded.add(next);
+                }
+            }
+            sets = expanded;
+        }
+
+        return sets;
+    }
+
+    /**
+     * Randomly sample parameter sets, uniformly within ranges or among listed values.
+     * @return The sampled parameter sets.
+     */
+    private List<Map<String, Double>> sampleParameters() {
+        Random random = new Random(samples);
+        List<Map<String, Double>> sets = new ArrayList<>();
+
+        for (int i = 0; i < samples; i++) {
+            Map<String, Double> set = new LinkedHashMap<>();
+
+            for (Map.Entry<String, String> spec : specs.entrySet()) {
+                String value = spec.getValue();
+
+                if (value.contains(":")) {
+                    String[] range = value.split(":");
+                    double min = Double.parseDouble(range[0]);
+                    double max = Double.parseDouble(range[1]);
+                    set.put(spec.getKey(), min + random.nextDouble() * (max - min));
+                } else {
+                    String[] choices = value.split(",");
+                    set.put(spec.getKey(), Double.parseDouble(choices[random.nextInt(choices.length)]));
+                }
+            }
+
+            sets.add(set);
+        }
+
+        return sets;
+    }
+
+    /**
+     * Run one simulation on the current worker's driver.
+     * @param parameters The parameter values to use.
+     * @param seed The seed for the starting particles.
+     * @return The metrics of the run.
+     */
+    private Result run(Map<String, Double> parameters, long seed) {
+        AnimationDriver driver = drivers.get();
+        long start = System.nanoTime();
+
+        driver.setParticleNum(particleNum);
+        driver.setParticleSize(particleSize);
+
+        // Seed last, so the starting particles don't depend on what the driver ran before
+        driver.setSeed(seed);
+        driver.initialize();
+
+        for (Map.Entry<String, Double> parameter : parameters.entrySet()) {
+            double value = parameter.getValue();
+
+            switch (parameter.getKey()) {
+                case "shapeForce" -> driver.setShapeForce(value);
+                case "shapeElasticity" -> driver.setShapeElasticity(value);
+                case "shapeExponent" -> driver.setShapeExponent(value);
+                case "particleElasticity" -> driver.setParticleElasticity(value);
+                case "magnetForce" -> driver.setMagnetForce(value);
+            }
+        }
+
+        if (square) {
+            driver.toggleSquare();
+        } else {
+            driver.toggleCircle();
+        }
+
+        if (magnetFrames > 0) {
+            driver.onMoved(driver.getWorldWidth() / 2, driver.getWorldHeight() / 2);
+            driver.setMagnetized(true);
+        }
+
+        Result result = new Result();
+        result.parameters = parameters;
+        result.seed = seed;
+        result.framesToConverge = -1;
+
+        int frame = 0;
+        while (frame < maxFrames) {
+            if (frame == magnetFrames) {
+                driver.setMagnetized(false);
+            }
+
+            driver.run();
+            frame++;
+
+            result.meanDistance = meanDistance(driver.getParticles());
+
+            // A blown up simulation will never converge
+            if (Double.isNaN(result.meanDistance)) {
+                break;
+            }
+
+            if (frame > magnetFrames && result.meanDistance <= tolerance) {
+                if (result.framesToConverge < 0) {
+                    result.framesToConverge = frame;
+                }
+
+                if (earlyStop) {
+                    break;
+                }
+            } else {
+                result.framesToConverge = -1;
+            }
+        }
+
+        result.frames = frame;
+        result.collisions = driver.getCollisionCount();
+        result.kineticEnergy = kineticEnergy(driver.getParticles());
+        result.elapsedMs = (System.nanoTime() - start) / 1e6;
+        return result;
+    }
+
+    /**
+     * Find the mean distance of the particles from their shape locations.
+     * @param particles The particles.
+     * @return The mean distance.
+     */
+    private static double meanDistance(List<Particle> particles) {
+        double total = 0;
+
+        for (Particle p : particles) {
+            double dx = p.stickyPos.x - p.pos.x;
+            double dy = p.stickyPos.y - p.pos.y;
+            total += Math.sqrt(dx * dx + dy * dy);
+        }
+
+        return total / Math.max(1, particles.size());
+    }
+
+    /**
+     * Find the total kinetic energy of the particles, each with unit mass.
+     * @param particles The particles.
+     * @return The kinetic energy.
+     */
+    private static double kineticEnergy(List<Particle> particles) {
+        double total = 0;
+
+        for (Particle p : particles) {
+            total += 0.5 * p.vel.dot(p.vel);
+        }
+
+        return total;
+    }
+
+    /**
+     * Metrics of one run.
+     */
+    private static class Result {
+        private Map<String, Double> parameters;
+        private long seed;
+        private int framesToConverge;
+        private int frames;
+        private long collisions;
+        private double kineticEnergy;
+        private double meanDistance;
+        private double elapsedMs;
+
+        public String toCsv() {
+            StringBuilder row = new StringBuilder();
+            row.append(seed);
+
+            for (double value : parameters.values()) {
+                row.append(',').append(value);
+            }
+
+            row.append(String.format(Locale.ROOT, ",%d,%d,%d,%.6f,%.6f,%.1f",
+                    framesToConverge, frames, collisions, kineticEnergy, meanDistance, elapsedMs));
+            return row.toString();
+        }
+    }
+}
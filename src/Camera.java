@@ -0,0 +1,81 @@
+/**
+ * Pan/zoom view onto the world, mapping between world and screen coordinates.
+ */
+public class Camera {
+    private static final double MIN_ZOOM = 0.001;
+    private static final double MAX_ZOOM = 100;
+
+    private double x;       // World x coordinate shown at the left edge of the screen
+    private double y;       // World y coordinate shown at the top edge of the screen
+    private double zoom;    // Screen pixels per world unit
+
+    /**
+     * Constructor.
+     * @param x The world x coordinate shown at the left edge of the screen.
+     * @param y The world y coordinate shown at the top edge of the screen.
+     * @param zoom The screen pixels per world unit.
+     */
+    public Camera(double x, double y, double zoom) {
+        this.x = x;
+        this.y = y;
+        this.zoom = zoom;
+    }
+
+    /**
+     * Center the view on a world position.
+     * @param worldX The world x coordinate.
+     * @param worldY The world y coordinate.
+     * @param screenWidth The width of the screen in pixels.
+     * @param screenHeight The height of the screen in pixels.
+     */
+    public void centerOn(double worldX, double worldY, double screenWidth, double screenHeight) {
+        x = worldX - screenWidth / (2 * zoom);
+        y = worldY - screenHeight / (2 * zoom);
+    }
+
+    /**
+     * Move the view by a distance in screen pixels.
+     * @param dx The horizontal distance.
+     * @param dy The vertical distance.
+     */
+    public void pan(double dx, double dy) {
+        x -= dx / zoom;
+        y -= dy / zoom;
+    }
+
+    /**
+     * Scale the zoom, keeping the world position under a screen position fixed.
+     * @param factor The factor to multiply the zoom by.
+     * @param screenX The screen x coordinate to zoom around.
+     * @param screenY The screen y coordinate to zoom around.
+     */
+    public void zoomAt(double factor, double screenX, double screenY) {
+        double worldX = toWorldX(screenX);
+        double worldY = toWorldY(screenY);
+
+        zoom = Math.min(MAX_ZOOM, Math.max(MIN_ZOOM, zoom * factor));
+
+        x = worldX - screenX / zoom;
+        y = worldY - screenY / zoom;
+    }
+
+    public double toWorldX(double screenX) {
+        return x + screenX / zoom;
+    }
+
+    public double toWorldY(double screenY) {
+        return y + screenY / zoom;
+    }
+
+    public double toScreenX(double worldX) {
+        return (worldX - x) * zoom;
+    }
+
+    public double toScreenY(double worldY) {
+        return (worldY - y) * zoom;
+    }
+
+    public double getZoom() {
+        return zoom;
+    }
+}
@@ -0,0 +1,20 @@
+/**
+ * Slows particles down in proportion to their velocity.
+ */
+public class DragForce implements ForceModule {
+    private double drag = 0;    // Fraction of velocity lost per frame
+
+    public boolean isActive() {
+        return drag > 0;
+    }
+
+    public void apply(Particle p, double dt) {
+        double scale = Math.max(0, 1 - drag * dt);
+        p.vel.x *= scale;
+        p.vel.y *= scale;
+    }
+
+    public void setDrag(double drag) {
+        this.drag = drag;
+    }
+}
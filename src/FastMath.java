@@ -0,0 +1,24 @@
+/**
+ * Accuracy-bounded approximations of the math functions used in the per-frame force calculations.
+ */
+public final class FastMath {
+    private FastMath() {
+    }
+
+    /**
+     * Approximates 1 / sqrt(x) with a bit-level initial guess refined by Newton's method.
+     * Relative error is below 5e-6 for all positive, finite, normal inputs.
+     * @param x The value, which must be positive.
+     * @return The approximate inverse square root of x.
+     */
+    public static double invSqrt(double x) {
+        double half = 0.5 * x;
+        double y = Double.longBitsToDouble(0x5FE6EB50C7B537A9L - (Double.doubleToRawLongBits(x) >> 1));
+
+        // Each iteration roughly squares the relative error of the guess
+        y *= 1.5 - half * y * y;
+        y *= 1.5 - half * y * y;
+
+        return y;
+    }
+}
@@ -0,0 +1,169 @@
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Headless accuracy and speed check for the fast-math approximations. Compares FastMath.invSqrt and PowTable
+ * against StrictMath over seeded random inputs, fails if any measured error is over its documented bound,
+ * and times each approximation against the Math function it replaces.
+ *
+ * Usage: java FastMathCheck
+ */
+public class FastMathCheck {
+    private static final long SEED = 26;
+    private static final int SAMPLES = 2_000_000;
+    private static final int BENCHMARK_INPUTS = 1 << 20;
+    private static final int BENCHMARK_ROUNDS = 10;
+    private static final double INV_SQRT_BOUND = 5e-6;
+
+    // Shape exponents as passed to the table, including the default and ones reachable from the settings field
+    private static final double[] EXPONENTS = {-0.2, 0.2, -0.5, -1, -2, -5, -20, 0.5, 3};
+
+    private static double sink = 0;
+
+    /**
+     * Little tiny main method.
+     * @param args The useless command line arguments.
+     */
+    public static void main(String[] args) {
+        boolean passed = checkInvSqrt();
+
+        for (double exponent : EXPONENTS) {
+            passed &= checkPow(exponent);
+        }
+
+        benchmark();
+
+        // Keep the benchmarked work from being optimized away
+        if (sink == 0) {
+            System.out.println(sink);
+        }
+
+        if (!passed) {
+            System.out.println("[ERROR]: fast math error bound exceeded");
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Measure the error of invSqrt over inputs spread across many orders of magnitude.
+     * @return Whether the error is within the documented bound.
+     */
+    private static boolean checkInvSqrt() {
+        Random random = new Random(SEED);
+        double maxError = 0;
+
+        for (int i = 0; i < SAMPLES; i++) {
+            double x = randomInput(random, 600);
+            double exact = 1 / StrictMath.sqrt(x);
+            maxError = Math.max(maxError, Math.abs(FastMath.invSqrt(x) - exact) / exact);
+        }
+
+        return report("invSqrt", maxError, INV_SQRT_BOUND);
+    }
+
+    /**
+     * Measure the error of a pow table over inputs spread across many orders of magnitude.
+     * @param exponent The exponent of the table.
+     * @return Whether the error is within the table's error bound.
+     */
+    private static boolean checkPow(double exponent) {
+        Random random = new Random(SEED);
+        PowTable table = new PowTable(exponent);
+        double margin = StrictMath.pow(2, Math.abs(exponent));
+        double maxError = 0;
+
+        for (int i = 0; i < SAMPLES; i++) {
+            double x = randomInput(random, 600);
+            double exact = StrictMath.pow(x, exponent);
+
+            // The bound only covers results well inside the normal range
+            if (!(exact >= Double.MIN_NORMAL * margin && exact <= Double.MAX_VALUE / margin)) {
+                continue;
+            }
+
+            maxError = Math.max(maxError, Math.abs(table.pow(x) - exact) / exact);
+        }
+
+        return report(String.format(Locale.ROOT, "pow^%s", exponent), maxError, table.getErrorBound());
+    }
+
+    /**
+     * Time each approximation against the function it replaces, on the squared distances the forces use.
+     */
+    private static void benchmark() {
+        Random random = new Random(SEED);
+        double[] inputs = new double[BENCHMARK_INPUTS];
+        for (int i = 0; i < inputs.length; i++) {
+            inputs[i] = randomInput(random, 15);
+        }
+
+        PowTable table = new PowTable(-0.2);
+
+        double mathPow = time(() -> {
+            for (double x : inputs) {
+                sink += Math.pow(x, -0.2);
+            }
+        });
+        double tablePow = time(() -> {
+            for (double x : inputs) {
+                sink += table.pow(x);
+            }
+        });
+        double mathInvSqrt = time(() -> {
+            for (double x : inputs) {
+                sink += 1 / Math.sqrt(x);
+            }
+        });
+        double fastInvSqrt = time(() -> {
+            for (double x : inputs) {
+                sink += FastMath.invSqrt(x);
+            }
+        });
+
+        System.out.printf(Locale.ROOT, "pow^-0.2: Math.pow %.2f ns, PowTable %.2f ns, %.2fx%n",
+                mathPow, tablePow, mathPow / tablePow);
+        System.out.printf(Locale.ROOT, "invSqrt: 1 / Math.sqrt %.2f ns, FastMath.invSqrt %.2f ns, %.2fx%n",
+                mathInvSqrt, fastInvSqrt, mathInvSqrt / fastInvSqrt);
+    }
+
+    /**
+     * Run a workload over the benchmark inputs several times.
+     * @param workload The workload.
+     * @return The best time per input, in nanoseconds.
+     */
+    private static double time(Runnable workload) {
+        double best = Double.MAX_VALUE;
+
+        for (int round = 0; round < BENCHMARK_ROUNDS; round++) {
+            long start = System.nanoTime();
+            workload.run();
+            best = Math.min(best, (double)(System.nanoTime() - start) / BENCHMARK_INPUTS);
+        }
+
+        return best;
+    }
+
+    /**
+     * Pick a positive input, uniformly distributed in its logarithm.
+     * @param random The random number generator.
+     * @param range The largest natural logarithm of the input, or of its inverse.
+     * @return The input.
+     */
+    private static double randomInput(Random random, double range) {
+        return Math.exp((random.nextDouble() * 2 - 1) * range);
+    }
+
+    /**
+     * Print the error of one approximation.
+     * @param name The name of the approximation.
+     * @param maxError The largest relative error measured.
+     * @param bound The documented error bound.
+     * @return Whether the error is within the bound.
+     */
+    private static boolean report(String name, double maxError, double bound) {
+        boolean passed = maxError <= bound;
+        System.out.printf(Locale.ROOT, "[%s] %s: max relative error %.3e (bound %.3e)%n",
+                passed ? "PASS" : "FAIL", name, maxError, bound);
+        return passed;
+    }
+}
@@ -0,0 +1,27 @@
+/**
+ * A force acting on each particle independently. The velocity-based engine applies it in its single per-particle pass,
+ * and the position-based engine applies it to velocities before predicting positions.
+ */
+public interface ForceModule {
+    /**
+     * Whether the force currently does anything, so inactive forces can be skipped for the whole frame.
+     * @return Whether the force is active.
+     */
+    boolean isActive();
+
+    /**
+     * Apply the force to an awake particle.
+     * @param p The particle.
+     * @param dt The amount of time the force acts for, in frames.
+     */
+    void apply(Particle p, double dt);
+
+    /**
+     * Whether the force should wake a sleeping particle, in which case it is applied to it this frame.
+     * @param p The sleeping particle.
+     * @return Whether the particle should be woken.
+     */
+    default boolean wakes(Particle p) {
+        return false;
+    }
+}
@@ -0,0 +1,19 @@
+/**
+ * Accelerates every particle in the same direction.
+ */
+public class GravityForce implements ForceModule {
+    private Vector2D gravity = new Vector2D(0, 0);  // Velocity added per frame
+
+    public boolean isActive() {
+        return gravity.x != 0 || gravity.y != 0;
+    }
+
+    public void apply(Particle p, double dt) {
+        p.vel.x += gravity.x * dt;
+        p.vel.y += gravity.y * dt;
+    }
+
+    public void setGravity(double x, double y) {
+        gravity = new Vector2D(x, y);
+    }
+}
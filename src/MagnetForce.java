@@ -0,0 +1,66 @@
+/**
+ * Pulls particles within a radius towards the user's mouse position.
+ */
+public class MagnetForce implements ForceModule {
+    private double radius = 100;            // Radius of the magnet on left/right-click
+    private double force = 0.3;             // Force of particle attraction to mouse location
+    private boolean fastMath = false;       // Whether to approximate the inverse square root
+
+    private boolean active = false;
+    private Vector2D position = new Vector2D(Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY);
+
+    public boolean isActive() {
+        return active;
+    }
+
+    public void apply(Particle p, double dt) {
+        // Calculate "optimal" velocity vector
+        double dx = position.x - p.pos.x;
+        double dy = position.y - p.pos.y;
+
+        // Find distance squared between particle and mouse position
+        double distanceSq = dx * dx + dy * dy;
+
+        // If within radius, apply a normalized velocity towards the mouse, independent of distance
+        if (distanceSq < radius * radius) {
+            p.wake();
+
+            double scale;
+            if (fastMath) {
+                scale = dt * force * FastMath.invSqrt(distanceSq);
+            } else {
+                scale = dt * force / Math.sqrt(distanceSq);
+            }
+
+            p.vel.x += dx * scale;
+            p.vel.y += dy * scale;
+        }
+    }
+
+    public boolean wakes(Particle p) {
+        double dx = position.x - p.pos.x;
+        double dy = position.y - p.pos.y;
+        return dx * dx + dy * dy < radius * radius;
+    }
+
+    public void setActive(boolean active) {
+        this.active = active;
+    }
+
+    public void setPosition(double x, double y) {
+        position.x = x;
+        position.y = y;
+    }
+
+    public void setRadius(double radius) {
+        this.radius = radius;
+    }
+
+    public void setForce(double force) {
+        this.force = force;
+    }
+
+    public void setFastMath(boolean fastMath) {
+        this.fastMath = fastMath;
+    }
+}
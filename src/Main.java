@@ -138,6 +138,14 @@ public class Main extends Application {
         TextField generalFrameOpacityField = new TextField();
         generalFrameOpacityField.setText("0.5");
 
+        Label generalDragLabel = new Label("Drag");
+        TextField generalDragField = new TextField();
+        generalDragField.setText("0");
+
+        Label generalGravityLabel = new Label("Gravity");
+        TextField generalGravityField = new TextField();
+        generalGravityField.setText("0");
+
         generalPane.add(generalParticlesLabel, 0, 0);
         generalPane.add(generalParticlesField, 1, 0);
 
@@ -153,9 +161,82 @@ public class Main extends Application {
         generalPane.add(generalFrameOpacityLabel, 0, 4);
         generalPane.add(generalFrameOpacityField, 1, 4);
 
+        generalPane.add(generalDragLabel, 0, 5);
+        generalPane.add(generalDragField, 1, 5);
+
+        generalPane.add(generalGravityLabel, 0, 6);
+        generalPane.add(generalGravityField, 1, 6);
+
+        Label worldLabel = new Label("World");
+        GridPane worldPane = new GridPane();
+        worldPane.setHgap(5);
+        worldPane.setAlignment(Pos.CENTER);
+
+        Label worldWidthLabel = new Label("Width");
+        TextField worldWidthField = new TextField();
+        worldWidthField.setText("800");
+
+        Label worldHeightLabel = new Label("Height");
+        TextField worldHeightField = new TextField();
+        worldHeightField.setText("800");
+
+        worldPane.add(worldWidthLabel, 0, 0);
+        worldPane.add(worldWidthField, 1, 0);
+
+        worldPane.add(worldHeightLabel, 0, 1);
+        worldPane.add(worldHeightField, 1, 1);
+
+        Label engineLabel = new Label("Engine");
+        GridPane enginePane = new GridPane();
+        enginePane.setHgap(5);
+        enginePane.setAlignment(Pos.CENTER);
+
+        Label engineIterationsLabel = new Label("Iterations");
+        TextField engineIterationsField = new TextField();
+        engineIterationsField.setText("4");
+
+        Label engineTimeStepLabel = new Label("Time Step");
+        TextField engineTimeStepField = new TextField();
+        engineTimeStepField.setText("1");
+
+        Label engineNeighborSkinLabel = new Label("Neighbor Skin");
+        TextField engineNeighborSkinField = new TextField();
+        engineNeighborSkinField.setText("2");
+
+        enginePane.add(engineIterationsLabel, 0, 0);
+        enginePane.add(engineIterationsField, 1, 0);
+
+        enginePane.add(engineTimeStepLabel, 0, 1);
+        enginePane.add(engineTimeStepField, 1, 1);
+
+        enginePane.add(engineNeighborSkinLabel, 0, 2);
+        enginePane.add(engineNeighborSkinField, 1, 2);
+
+        Label engineReorderIntervalLabel = new Label("Reorder Interval");
+        TextField engineReorderIntervalField = new TextField();
+        engineReorderIntervalField.setText("30");
+
+        enginePane.add(engineReorderIntervalLabel, 0, 3);
+        enginePane.add(engineReorderIntervalField, 1, 3);
+
+        CheckBox positionBasedEnabled = new CheckBox("Position-Based Engine");
+        positionBasedEnabled.setSelected(false);
+
+        CheckBox neighborListsEnabled = new CheckBox("Neighbor Lists");
+        neighborListsEnabled.setSelected(false);
+
+        CheckBox mortonOrderingEnabled = new CheckBox("Morton Ordering");
+        mortonOrderingEnabled.setSelected(true);
+
         CheckBox collisonsEnabled = new CheckBox("Collisions");
         collisonsEnabled.setSelected(true);
 
+        CheckBox fastMathEnabled = new CheckBox("Fast Math");
+        fastMathEnabled.setSelected(false);
+
+        CheckBox sleepingEnabled = new CheckBox("Sleeping");
+        sleepingEnabled.setSelected(true);
+
         // Click to apply all settings
         Button applyBtn = new Button("Apply");
         applyBtn.setOnAction(e -> {
@@ -174,6 +255,22 @@ public class Main extends Application {
                 double particleElasticity = Double.parseDouble(generalElasticityField.getText());
                 double startingVelocity = Double.parseDouble(generalStartingVelocityField.getText());
                 double frameOpacity = Double.parseDouble(generalFrameOpacityField.getText());
+                double drag = Double.parseDouble(generalDragField.getText());
+                double gravity = Double.parseDouble(generalGravityField.getText());
+
+                double worldWidth = Double.parseDouble(worldWidthField.getText());
+                double worldHeight = Double.parseDouble(worldHeightField.getText());
+
+                int solverIterations = Integer.parseInt(engineIterationsField.getText());
+                double timeStep = Double.parseDouble(engineTimeStepField.getText());
+                double neighborSkin = Double.parseDouble(engineNeighborSkinField.getText());
+                int reorderInterval = Integer.parseInt(engineReorderIntervalField.getText());
+
+                // Only move the camera when the world itself changes
+                if (worldWidth != driver.getWorldWidth() || worldHeight != driver.getWorldHeight()) {
+                    driver.setWorldSize(worldWidth, worldHeight);
+                    canvas.resetCamera();
+                }
 
                 driver.setShapeRadius(shapeRadius);
                 driver.setShapeAngle(Math.toRadians(shapeAngle));
@@ -188,7 +285,19 @@ public class Main extends Application {
                 driver.setParticleSize(particleSize);
                 driver.setParticleElasticity(particleElasticity);
                 driver.setStartingVelocity(startingVelocity);
+                driver.setDrag(drag);
+                driver.setGravity(0, gravity);
                 driver.setParticleCollisions(collisonsEnabled.isSelected());
+                driver.setFastMath(fastMathEnabled.isSelected());
+                driver.setParticleSleeping(sleepingEnabled.isSelected());
+
+                driver.setSolverIterations(solverIterations);
+                driver.setTimeStep(timeStep);
+                driver.setPositionBased(positionBasedEnabled.isSelected());
+                driver.setNeighborSkin(neighborSkin);
+                driver.setNeighborLists(neighborListsEnabled.isSelected());
+                driver.setReorderInterval(reorderInterval);
+                driver.setMortonOrdering(mortonOrderingEnabled.isSelected());
 
                 canvas.setFrameOpacity(frameOpacity);
             } catch (NumberFormatException ex) {
@@ -211,6 +320,11 @@ public class Main extends Application {
             animator.reinitialize();
         });
 
+        Button resetViewBtn = new Button("Reset View");
+        resetViewBtn.setOnAction(e -> {
+            canvas.resetCamera();
+        });
+
         root.getChildren().addAll(
                 title,
                 shapeLabel,
@@ -219,11 +333,21 @@ public class Main extends Application {
                 magnetPane,
                 generalLabel,
                 generalPane,
+                worldLabel,
+                worldPane,
+                engineLabel,
+                enginePane,
+                positionBasedEnabled,
+                neighborListsEnabled,
+                mortonOrderingEnabled,
                 collisonsEnabled,
+                fastMathEnabled,
+                sleepingEnabled,
                 applyBtn,
                 startBtn,
                 stepBtn,
-                restartBtn
+                restartBtn,
+                resetViewBtn
         );
 
         VBox.setMargin(title, new Insets(20, 0, 0, 0));
@@ -0,0 +1,106 @@
+import java.util.Locale;
+
+/**
+ * Headless benchmark for Morton ordering. Runs a large seeded scene of free particles with Morton ordering
+ * off and on, with collision candidates from the grid and from neighbor lists, and times the collision pass
+ * as the difference between the average step with collisions on and off. Fails if reordering lost or
+ * duplicated any particle id.
+ *
+ * Usage: java MortonBenchmark [particle count]
+ */
+public class MortonBenchmark {
+    private static final long SEED = 7;
+    private static final int DEFAULT_PARTICLES = 1_000_000;
+    private static final double WORLD_SIZE = 4000;
+    private static final int WARMUP_STEPS = 35;     // Past the first reorder check, so ordered runs are sorted
+    private static final int MEASURED_STEPS = 5;
+
+    /**
+     * Little tiny main method.
+     * @param args The number of particles, defaulting to one million.
+     */
+    public static void main(String[] args) {
+        int particleNum = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PARTICLES;
+        boolean passed = true;
+
+        for (boolean neighborLists : new boolean[] {false, true}) {
+            double[] unordered = measure(particleNum, neighborLists, false);
+            double[] ordered = measure(particleNum, neighborLists, true);
+            passed &= unordered[2] == 0 && ordered[2] == 0;
+
+            System.out.printf(Locale.ROOT, "%s, %d particles: collision pass %.1f ms -> %.1f ms (%.2fx), "
+                            + "step %.1f ms -> %.1f ms%n",
+                    neighborLists ? "neighbor lists" : "grid", particleNum,
+                    unordered[1] - unordered[0], ordered[1] - ordered[0],
+                    (unordered[1] - unordered[0]) / (ordered[1] - ordered[0]), unordered[1], ordered[1]);
+        }
+
+        if (!passed) {
+            System.out.println("[ERROR]: particle ids changed while reordering");
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Run the scene and time steps without collisions, then with them.
+     * @param particleNum The number of particles.
+     * @param neighborLists Whether to cache collision candidates in neighbor lists.
+     * @param mortonOrdering Whether to reorder the particles along a Morton curve.
+     * @return The average step time without and with collisions in milliseconds, and the number of bad ids.
+     */
+    private static double[] measure(int particleNum, boolean neighborLists, boolean mortonOrdering) {
+        AnimationDriver driver = new AnimationDriver(WORLD_SIZE, WORLD_SIZE);
+        driver.setSeed(SEED);
+        driver.setParticleNum(particleNum);
+        driver.initialize();
+        driver.setNeighborLists(neighborLists);
+        driver.setMortonOrdering(mortonOrdering);
+
+        for (int i = 0; i < WARMUP_STEPS; i++) {
+            driver.run();
+        }
+
+        driver.setParticleCollisions(false);
+        double withoutCollisions = time(driver);
+
+        // The neighbor lists go stale while collisions are off, so let the first step rebuild them untimed
+        driver.setParticleCollisions(true);
+        driver.run();
+        double withCollisions = time(driver);
+
+        return new double[] {withoutCollisions, withCollisions, countBadIds(driver)};
+    }
+
+    /**
+     * Time several steps, including any neighbor list rebuilds among them.
+     * @param driver The driver to step.
+     * @return The average step time in milliseconds.
+     */
+    private static double time(AnimationDriver driver) {
+        long start = System.nanoTime();
+        for (int i = 0; i < MEASURED_STEPS; i++) {
+            driver.run();
+        }
+
+        return (System.nanoTime() - start) / 1e6 / MEASURED_STEPS;
+    }
+
+    /**
+     * Count the ids that are missing or duplicated, since reordering must keep each particle exactly once.
+     * @param driver The driver holding the particles.
+     * @return The number of bad ids.
+     */
+    private static int countBadIds(AnimationDriver driver) {
+        int n = driver.getParticles().size();
+        int[] seen = new int[n];
+        int bad = 0;
+
+        for (Particle p : driver.getParticles()) {
+            if (p.id < 0 || p.id >= n || seen[p.id]++ > 0) {
+                bad++;
+            }
+        }
+
+        return bad;
+    }
+}
@@ -0,0 +1,194 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+
+/**
+ * Sorts particle storage along a Morton (Z-order) curve over the world, so particles close in space
+ * are also close in memory. Uses a parallel least significant digit radix sort on 32-bit codes, which runs
+ * on the calling thread below MIN_CHUNK particles or when parallel sorting is turned off.
+ */
+public class MortonOrder {
+    private static final int RADIX_BITS = 8;
+    private static final int BUCKETS = 1 << RADIX_BITS;
+    private static final int MIN_CHUNK = 1 << 14;
+    private static final int DISORDER_SHIFT = 16;   // Order within cells of 1/256 of the world is ignored for disorder
+
+    private int[] codes = new int[0];
+    private int[] codesTmp = new int[0];
+    private int[] order = new int[0];
+    private int[] orderTmp = new int[0];
+    private int[][] histograms = new int[0][];
+    private Particle[] copy = new Particle[0];
+
+    private boolean parallel = true;    // Whether large sorts use the common fork/join pool
+    private long reorders = 0;      // Number of times the particles were reordered
+    private double disorder = 0;    // Disorder measured at the last check
+
+    /**
+     * Compute the Morton code of every particle and measure how far the storage order is from sorted.
+     * @param particles The particles.
+     * @param worldWidth The width of the world.
+     * @param worldHeight The height of the world.
+     * @return The fraction of neighboring particles in storage whose cells are out of order.
+     */
+    public double measureDisorder(ArrayList<Particle> particles, double worldWidth, double worldHeight) {
+        int n = particles.size();
+        ensureCapacity(n);
+
+        double scaleX = 65535 / Math.max(1, worldWidth);
+        double scaleY = 65535 / Math.max(1, worldHeight);
+
+        forEach(n, parallel && n >= MIN_CHUNK, i -> {
+            Vector2D pos = particles.get(i).pos;
+            int x = (int)Math.min(65535, Math.max(0, pos.x * scaleX));
+            int y = (int)Math.min(65535, Math.max(0, pos.y * scaleY));
+            codes[i] = spread(x) | (spread(y) << 1);
+        });
+
+        int outOfOrder = 0;
+        for (int i = 1; i < n; i++) {
+            if (Integer.compareUnsigned(codes[i - 1] >>> DISORDER_SHIFT, codes[i] >>> DISORDER_SHIFT) > 0) {
+                outOfOrder++;
+            }
+        }
+
+        disorder = n > 1 ? (double)outOfOrder / (n - 1) : 0;
+        return disorder;
+    }
+
+    /**
+     * Reorder the particles by the codes from the last call to measureDisorder.
+     * @param particles The particles, in the same order as when measured.
+     */
+    public void reorder(ArrayList<Particle> particles) {
+        int n = particles.size();
+        int chunks = parallel ? Math.max(1, Math.min(ForkJoinPool.getCommonPoolParallelism(), n / MIN_CHUNK)) : 1;
+        int chunkSize = (n + chunks - 1) / chunks;
+
+        if (histograms.length != chunks) {
+            histograms = new int[chunks][BUCKETS];
+        }
+
+        for (int i = 0; i < n; i++) {
+            order[i] = i;
+        }
+
+        // Each pass stably sorts by one more significant digit
+        for (int shift = 0; shift < 32; shift += RADIX_BITS) {
+            int digitShift = shift;
+            int[] srcCodes = codes;
+            int[] srcOrder = order;
+
+            // Count the digits of each chunk in parallel
+            forEach(chunks, chunks > 1, c -> {
+                int[] histogram = histograms[c];
+                Arrays.fill(histogram, 0);
+
+                for (int i = c * chunkSize; i < Math.min(n, (c + 1) * chunkSize); i++) {
+                    histogram[(srcCodes[i] >>> digitShift) & (BUCKETS - 1)]++;
+                }
+            });
+
+            // Turn the counts into each chunk's starting offset within each bucket
+            int offset = 0;
+            for (int b = 0; b < BUCKETS; b++) {
+                for (int c = 0; c < chunks; c++) {
+                    int count = histograms[c][b];
+                    histograms[c][b] = offset;
+                    offset += count;
+                }
+            }
+
+            // Scatter each chunk in parallel, keeping the order within each chunk
+            forEach(chunks, chunks > 1, c -> {
+                int[] offsets = histograms[c];
+
+                for (int i = c * chunkSize; i < Math.min(n, (c + 1) * chunkSize); i++) {
+                    int target = offsets[(srcCodes[i] >>> digitShift) & (BUCKETS - 1)]++;
+                    codesTmp[target] = srcCodes[i];
+                    orderTmp[target] = srcOrder[i];
+                }
+            });
+
+            codes = codesTmp;
+            codesTmp = srcCodes;
+            order = orderTmp;
+            orderTmp = srcOrder;
+        }
+
+        // Move the particles themselves, so everything they carry moves with them
+        copy = particles.toArray(copy);
+        for (int i = 0; i < n; i++) {
+            particles.set(i, copy[order[i]]);
+        }
+        Arrays.fill(copy, 0, n, null);
+
+        reorders++;
+    }
+
+    /**
+     * Run an action for each index, on the common fork/join pool or on the calling thread.
+     * @param count The number of indices.
+     * @param inParallel Whether to run on the common pool.
+     * @param action The action to run for each index.
+     */
+    private static void forEach(int count, boolean inParallel, IntConsumer action) {
+        if (inParallel) {
+            IntStream.range(0, count).parallel().forEach(action);
+            return;
+        }
+
+        for (int i = 0; i < count; i++) {
+            action.accept(i);
+        }
+    }
+
+    /**
+     * Spread the low 16 bits of a value out to the even bits.
+     * @param v The value.
+     * @return The spread bits.
+     */
+    private static int spread(int v) {
+        v = (v | (v << 8)) & 0x00FF00FF;
+        v = (v | (v << 4)) & 0x0F0F0F0F;
+        v = (v | (v << 2)) & 0x33333333;
+        v = (v | (v << 1)) & 0x55555555;
+        return v;
+    }
+
+    /**
+     * Grow the buffers to hold a number of particles.
+     * @param n The number of particles.
+     */
+    private void ensureCapacity(int n) {
+        if (codes.length < n) {
+            codes = new int[n];
+            codesTmp = new int[n];
+            order = new int[n];
+            orderTmp = new int[n];
+        }
+    }
+
+    public long getReorders() {
+        return reorders;
+    }
+
+    public double getDisorder() {
+        return disorder;
+    }
+
+    public boolean isParallel() {
+        return parallel;
+    }
+
+    /**
+     * Choose whether large sorts use the common fork/join pool. Callers that already keep every core busy
+     * should turn this off, since the pool would compete with them for the same cores.
+     * @param parallel Whether large sorts use the common pool.
+     */
+    public void setParallel(boolean parallel) {
+        this.parallel = parallel;
+    }
+}
@@ -0,0 +1,175 @@
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.IntConsumer;
+
+/**
+ * Cached Verlet neighbor lists. Each particle keeps the other particles within the interaction range
+ * plus a skin distance, earlier particles before later ones, and the lists stay valid until some particle
+ * has moved more than half the skin, since until then no pair outside the lists can have come within
+ * the interaction range.
+ */
+public class NeighborList {
+    private int[] neighborStart = new int[1];   // Offset of each particle's first neighbor, plus a final end offset
+    private int[] neighborSplit = new int[0];   // Offset of each particle's first later neighbor
+    private int[] neighbors = new int[0];       // Neighbor indices, ascending for each particle
+    private double[] buildX = new double[0];    // Particle positions when the lists were built
+    private double[] buildY = new double[0];
+    private int size = -1;                      // Number of particles when the lists were built, or -1 if invalid
+    private double cutoff;                      // Interaction range plus skin the lists were built with
+
+    private long checks = 0;                    // Number of times the lists were requested
+    private long rebuilds = 0;                  // Number of times the lists had to be rebuilt
+
+    private int queryIndex;
+    private double queryX;
+    private double queryY;
+    private int[] candidates = new int[16];
+    private int[] candidatesTmp = new int[16];  // Merge buffer for sorting the candidates
+    private int candidateCount;
+    private IntConsumer collectCandidate = this::collectCandidate;
+
+    /**
+     * Check whether the lists must be rebuilt before use, counting the check for the hit rate.
+     * @param particles The particles.
+     * @param range The interaction range.
+     * @param skin The skin distance.
+     * @return Whether the lists must be rebuilt.
+     */
+    public boolean needsRebuild(List<Particle> particles, double range, double skin) {
+        checks++;
+
+        if (size != particles.size() || cutoff != range + skin) {
+            return true;
+        }
+
+        // Rebuild once any particle has moved more than half the skin
+        double limitSq = skin * skin / 4;
+        for (int i = 0; i < size; i++) {
+            Vector2D pos = particles.get(i).pos;
+            double dx = pos.x - buildX[i];
+            double dy = pos.y - buildY[i];
+
+            if (dx * dx + dy * dy > limitSq) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Rebuild the lists from the current positions.
+     * @param particles The particles.
+     * @param grid A spatial grid built from the current positions.
+     * @param range The interaction range.
+     * @param skin The skin distance.
+     */
+    public void build(List<Particle> particles, SpatialGrid grid, double range, double skin) {
+        int n = particles.size();
+        rebuilds++;
+        size = n;
+        cutoff = range + skin;
+
+        if (buildX.length < n) {
+            buildX = new double[n];
+            buildY = new double[n];
+            neighborStart = new int[n + 1];
+            neighborSplit = new int[n];
+        }
+
+        for (int i = 0; i < n; i++) {
+            Vector2D pos = particles.get(i).pos;
+            buildX[i] = pos.x;
+            buildY[i] = pos.y;
+        }
+
+        int count = 0;
+        for (int i = 0; i < n; i++) {
+            queryIndex = i;
+            queryX = buildX[i];
+            queryY = buildY[i];
+            candidateCount = 0;
+            grid.query(queryX - cutoff, queryY - cutoff, queryX + cutoff, queryY + cutoff, collectCandidate);
+            candidatesTmp = SpatialGrid.sortIndices(candidates, candidateCount, candidatesTmp);
+
+            if (neighbors.length < count + candidateCount) {
+                neighbors = Arrays.copyOf(neighbors, Math.max(2 * neighbors.length, count + candidateCount));
+            }
+
+            neighborStart[i] = count;
+            System.arraycopy(candidates, 0, neighbors, count, candidateCount);
+
+            int split = count;
+            while (split < count + candidateCount && neighbors[split] < i) {
+                split++;
+            }
+
+            neighborSplit[i] = split;
+            count += candidateCount;
+        }
+
+        neighborStart[n] = count;
+    }
+
+    /**
+     * Add a particle to the current particle's neighbors, if it is another particle within the cutoff.
+     * @param index The particle index.
+     */
+    private void collectCandidate(int index) {
+        if (index == queryIndex) {
+            return;
+        }
+
+        double dx = buildX[index] - queryX;
+        double dy = buildY[index] - queryY;
+
+        if (dx * dx + dy * dy > cutoff * cutoff) {
+            return;
+        }
+
+        if (candidateCount == candidates.length) {
+            candidates = Arrays.copyOf(candidates, 2 * candidateCount);
+        }
+
+        candidates[candidateCount++] = index;
+    }
+
+    /**
+     * Mark the lists as invalid, for when particle indices no longer match.
+     */
+    public void invalidate() {
+        size = -1;
+    }
+
+    public int start(int index) {
+        return neighborStart[index];
+    }
+
+    public int split(int index) {
+        return neighborSplit[index];
+    }
+
+    public int end(int index) {
+        return neighborStart[index + 1];
+    }
+
+    public int neighbor(int k) {
+        return neighbors[k];
+    }
+
+    public long getChecks() {
+        return checks;
+    }
+
+    public long getRebuilds() {
+        return rebuilds;
+    }
+
+    /**
+     * Get the fraction of checks that reused the cached lists.
+     * @return The hit rate.
+     */
+    public double getHitRate() {
+        return checks == 0 ? 0 : 1 - (double)rebuilds / checks;
+    }
+}
@@ -4,12 +4,18 @@ import javafx.scene.paint.Color;
  * Basic object representing one particle.
  */
 public class Particle {
+    public int id;              // Creation order, unchanged when the particles are reordered in storage
+
     public Vector2D pos;
     public Vector2D vel;
     public Vector2D stickyPos;
+    public Vector2D prevPos;    // Position at the start of the current position-based step
 
     public Color color;
 
+    public boolean asleep;      // Whether the particle is at rest and skipped by the simulation
+    public int restFrames;      // Number of consecutive frames the particle has been close to rest
+
     /**
      * Constructor.
      */
@@ -17,13 +23,23 @@ public class Particle {
         pos = new Vector2D(0, 0);
         vel = new Vector2D(0, 0);
         stickyPos = new Vector2D(0, 0);
+        prevPos = new Vector2D(0, 0);
     }
 
     /**
      * Step forward one time step.
      */
     public void update() {
-        pos = pos.add(vel);
+        pos.x += vel.x;
+        pos.y += vel.y;
+    }
+
+    /**
+     * Wake the particle up so it is simulated again.
+     */
+    public void wake() {
+        asleep = false;
+        restFrames = 0;
     }
 
     public String toString() {
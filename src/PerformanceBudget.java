@@ -0,0 +1,312 @@
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Locale;
+
+/**
+ * Headless regression check for the frame loop. Runs seeded scenarios through the animation driver,
+ * measures allocated bytes and throughput per step, writes a JSON report, and exits with a non-zero
+ * status if any scenario is over its budget.
+ *
+ * Usage: java PerformanceBudget [report path]
+ */
+public class PerformanceBudget {
+    private static final long SEED = 205;
+    private static final int WARMUP_STEPS = 200;
+    private static final int MEASURED_STEPS = 500;
+    private static final int CALIBRATION_ROUNDS = 5;
+    private static final int COMPARISON_ROUNDS = 3;
+    private static final double MIN_NEIGHBOR_HIT_RATE = 0.5;
+
+    /**
+     * Little tiny main method.
+     * @param args The report path, defaulting to perf-report.json.
+     */
+    public static void main(String[] args) throws IOException {
+        String reportPath = args.length > 0 ? args[0] : "perf-report.json";
+
+        com.sun.management.ThreadMXBean threadBean =
+                (com.sun.management.ThreadMXBean)ManagementFactory.getThreadMXBean();
+        threadBean.setThreadAllocatedMemoryEnabled(true);
+
+        double calibration = calibrate();
+        ArrayList<Result> results = new ArrayList<>();
+
+        for (Scenario scenario : scenarios()) {
+            results.add(scenario.measure(threadBean, calibration));
+        }
+
+        writeReport(reportPath, calibration, results);
+
+        boolean passed = true;
+        for (Result result : results) {
+            System.out.println(result);
+            passed &= result.passed();
+        }
+
+        if (!passed) {
+            System.out.println("[ERROR]: performance budget exceeded, see " + reportPath);
+            System.exit(1);
+        }
+    }
+
+    /**
+     * The scenarios to check. Budgets are per particle per step, and throughput is in particle-steps
+     * per calibration unit so it is comparable across machines. Allocation budgets sit a few bytes over
+     * the measured values, which are all under 1, so one extra vector per particle-step of about
+     * 32 bytes fails. Tighten them again whenever allocations drop. Throughput floors sit at about half
+     * the typical measurement, since repeated runs on a busy machine vary by nearly that much.
+     * Scenarios with neighbor lists are also run without them, and fail if the cache is slower
+     * or rarely reused, so "slow" covers particles moving slowly enough for the cache to pay off.
+     * @return The scenarios.
+     */
+    private static Scenario[] scenarios() {
+        return new Scenario[] {
+                new Scenario("free", 2000, 1, false, false, false, false, 2, 0.04),
+                new Scenario("circle", 2000, 1, true, false, false, false, 2, 0.015),
+                new Scenario("magnet", 2000, 1, true, true, false, false, 2, 0.015),
+                new Scenario("positionBased", 2000, 1, true, false, true, false, 2, 0.008),
+                new Scenario("slow", 2000, 0.1, false, false, false, true, 2, 0.04)
+        };
+    }
+
+    /**
+     * Time a fixed floating point workload similar to the force calculations.
+     * @return The best number of workload iterations per microsecond.
+     */
+    private static double calibrate() {
+        int iterations = 2_000_000;
+        double best = 0;
+        double sink = 0;
+
+        for (int round = 0; round < CALIBRATION_ROUNDS; round++) {
+            long start = System.nanoTime();
+
+            double x = 1;
+            double y = 2;
+            for (int i = 0; i < iterations; i++) {
+                double dx = 400 - x;
+                double dy = 400 - y;
+                double scale = 1.2 / Math.sqrt(dx * dx + dy * dy + 1);
+                x += dx * scale * 0.03;
+                y += dy * scale * 0.03;
+            }
+            sink += x + y;
+
+            best = Math.max(best, iterations / ((System.nanoTime() - start) / 1000.0));
+        }
+
+        // Keep the workload from being optimized away
+        if (sink == 0) {
+            System.out.println(sink);
+        }
+
+        return best;
+    }
+
+    /**
+     * Write every result as a JSON report.
+     * @param path The file to write.
+     * @param calibration The calibration score of this machine.
+     * @param results The results.
+     */
+    private static void writeReport(String path, double calibration, ArrayList<Result> results) throws IOException {
+        try (PrintWriter out = new PrintWriter(path)) {
+            out.println("{");
+            out.printf(Locale.ROOT, "  \"timestamp\": %d,%n", System.currentTimeMillis());
+            out.printf(Locale.ROOT, "  \"javaVersion\": \"%s\",%n", System.getProperty("java.version"));
+            out.printf(Locale.ROOT, "  \"calibration\": %.3f,%n", calibration);
+            out.println("  \"scenarios\": [");
+
+            for (int i = 0; i < results.size(); i++) {
+                out.print("    " + results.get(i).toJson());
+                out.println(i < results.size() - 1 ? "," : "");
+            }
+
+            out.println("  ]");
+            out.println("}");
+        }
+    }
+
+    /**
+     * A seeded simulation setup with its budgets.
+     */
+    private static class Scenario {
+        private String name;
+        private int particleNum;
+        private double startingVelocity;
+        private boolean circle;
+        private boolean magnet;
+        private boolean positionBased;
+        private boolean neighborLists;
+        private double maxBytesPerParticleStep;
+        private double minRelativeThroughput;
+
+        /**
+         * Constructor.
+         * @param name The name used in the report.
+         * @param particleNum The number of particles.
+         * @param startingVelocity The maximum magnitude of initial velocities.
+         * @param circle Whether the particles form a circle.
+         * @param magnet Whether the magnet is held at the world center.
+         * @param positionBased Whether to use the position-based engine.
+         * @param neighborLists Whether to cache collision candidates, checking the cache against running without it.
+         * @param maxBytesPerParticleStep The allocation budget.
+         * @param minRelativeThroughput The throughput budget.
+         */
+        public Scenario(String name, int particleNum, double startingVelocity, boolean circle, boolean magnet,
+                        boolean positionBased, boolean neighborLists,
+                        double maxBytesPerParticleStep, double minRelativeThroughput) {
+            this.name = name;
+            this.particleNum = particleNum;
+            this.startingVelocity = startingVelocity;
+            this.circle = circle;
+            this.magnet = magnet;
+            this.positionBased = positionBased;
+            this.neighborLists = neighborLists;
+            this.maxBytesPerParticleStep = maxBytesPerParticleStep;
+            this.minRelativeThroughput = minRelativeThroughput;
+        }
+
+        /**
+         * Run the scenario and measure it.
+         * @param threadBean The bean used to read allocated bytes.
+         * @param calibration The calibration score of this machine.
+         * @return The result.
+         */
+        public Result measure(com.sun.management.ThreadMXBean threadBean, double calibration) {
+            if (!neighborLists) {
+                return measure(threadBean, calibration, false);
+            }
+
+            // Alternate a few rounds, so both paths are equally compiled when the last round is measured
+            Result uncached = null;
+            Result result = null;
+            for (int round = 0; round < COMPARISON_ROUNDS; round++) {
+                uncached = measure(threadBean, calibration, false);
+                result = measure(threadBean, calibration, true);
+            }
+
+            result.uncachedStepsPerSecond = uncached.stepsPerSecond;
+            return result;
+        }
+
+        /**
+         * Run the scenario and measure it, with or without neighbor lists.
+         * @param threadBean The bean used to read allocated bytes.
+         * @param calibration The calibration score of this machine.
+         * @param cached Whether to cache collision candidates in neighbor lists.
+         * @return The result.
+         */
+        private Result measure(com.sun.management.ThreadMXBean threadBean, double calibration, boolean cached) {
+            AnimationDriver driver = new AnimationDriver(800, 800);
+            driver.setSeed(SEED);
+            driver.setParticleNum(particleNum);
+            driver.setStartingVelocity(startingVelocity);
+            driver.initialize();
+            driver.setPositionBased(positionBased);
+            driver.setNeighborLists(cached);
+
+            if (circle) {
+                driver.toggleCircle();
+            }
+
+            if (magnet) {
+                driver.onMoved(400, 400);
+                driver.setMagnetized(true);
+            }
+
+            for (int i = 0; i < WARMUP_STEPS; i++) {
+                driver.run();
+            }
+
+            // Only the measured steps count towards the hit rate
+            long startChecks = driver.getNeighborList().getChecks();
+            long startRebuilds = driver.getNeighborList().getRebuilds();
+
+            long threadId = Thread.currentThread().getId();
+            long startBytes = threadBean.getThreadAllocatedBytes(threadId);
+            long startTime = System.nanoTime();
+
+            for (int i = 0; i < MEASURED_STEPS; i++) {
+                driver.run();
+            }
+
+            long elapsed = System.nanoTime() - startTime;
+            long allocated = threadBean.getThreadAllocatedBytes(threadId) - startBytes;
+
+            Result result = new Result();
+            result.scenario = this;
+            result.bytesPerStep = (double)allocated / MEASURED_STEPS;
+            result.stepsPerSecond = MEASURED_STEPS / (elapsed / 1e9);
+            result.relativeThroughput = result.stepsPerSecond * particleNum / 1e6 / calibration;
+            long checks = driver.getNeighborList().getChecks() - startChecks;
+            result.neighborRebuilds = driver.getNeighborList().getRebuilds() - startRebuilds;
+            result.neighborHitRate = checks == 0 ? 0 : 1 - (double)result.neighborRebuilds / checks;
+            return result;
+        }
+    }
+
+    /**
+     * Measurements of one scenario.
+     */
+    private static class Result {
+        private Scenario scenario;
+        private double bytesPerStep;
+        private double stepsPerSecond;
+        private double relativeThroughput;
+        private long neighborRebuilds;
+        private double neighborHitRate;
+        private double uncachedStepsPerSecond;
+
+        public boolean allocationPassed() {
+            return bytesPerStep / scenario.particleNum <= scenario.maxBytesPerParticleStep;
+        }
+
+        public boolean throughputPassed() {
+            return relativeThroughput >= scenario.minRelativeThroughput;
+        }
+
+        /**
+         * Check that the neighbor lists are reused and faster than finding candidates every step.
+         * @return Whether the cache pays off, or true if the scenario does not use it.
+         */
+        public boolean neighborListsPassed() {
+            return !scenario.neighborLists
+                    || (neighborHitRate >= MIN_NEIGHBOR_HIT_RATE && stepsPerSecond >= uncachedStepsPerSecond);
+        }
+
+        public boolean passed() {
+            return allocationPassed() && throughputPassed() && neighborListsPassed();
+        }
+
+        public String toJson() {
+            return String.format(Locale.ROOT,
+                    "{\"name\": \"%s\", \"particles\": %d, \"bytesPerStep\": %.1f, \"bytesPerParticleStep\": %.2f, "
+                            + "\"maxBytesPerParticleStep\": %.2f, \"stepsPerSecond\": %.2f, "
+                            + "\"relativeThroughput\": %.4f, \"minRelativeThroughput\": %.4f, "
+                            + "\"neighborLists\": %b, \"neighborRebuilds\": %d, \"neighborHitRate\": %.4f, "
+                            + "\"uncachedStepsPerSecond\": %.2f, \"passed\": %b}",
+                    scenario.name, scenario.particleNum, bytesPerStep, bytesPerStep / scenario.particleNum,
+                    scenario.maxBytesPerParticleStep, stepsPerSecond,
+                    relativeThroughput, scenario.minRelativeThroughput,
+                    scenario.neighborLists, neighborRebuilds, neighborHitRate, uncachedStepsPerSecond, passed());
+        }
+
+        public String toString() {
+            String text = String.format(Locale.ROOT, "[%s] %s: %.2f bytes/particle-step (max %.2f), %.1f steps/s, "
+                            + "%.4f relative throughput (min %.4f)",
+                    passed() ? "PASS" : "FAIL", scenario.name, bytesPerStep / scenario.particleNum,
+                    scenario.maxBytesPerParticleStep, stepsPerSecond,
+                    relativeThroughput, scenario.minRelativeThroughput);
+
+            if (scenario.neighborLists) {
+                text += String.format(Locale.ROOT, ", %.4f neighbor hit rate (min %.4f), %.1f steps/s uncached",
+                        neighborHitRate, MIN_NEIGHBOR_HIT_RATE, uncachedStepsPerSecond);
+            }
+
+            return text;
+        }
+    }
+}
@@ -0,0 +1,118 @@
+/**
+ * Pulls particles towards their designated positions within the shape,
+ * and puts particles that have settled there to sleep.
+ */
+public class ShapeForce implements ForceModule {
+    private double force = 1.2;             // Force of particle attraction to shape location
+    private double elasticity = 0.03;       // How strongly the shape force is applied to particles
+    private double exponent = 0.2;          // Controls how distance affects the shape force
+    private boolean fastMath = false;       // Whether to approximate the exponent with a lookup table
+
+    private boolean sleeping = true;        // Whether particles at rest in a shape are put to sleep
+    private double sleepVelocity = 0.05;    // Maximum speed of a particle at rest
+    private double sleepDistance = 1;       // Maximum distance from its shape location of a particle at rest
+    private int sleepFrames = 60;           // Number of frames a particle must be at rest before sleeping
+
+    private boolean active = false;
+    private PowTable pow = new PowTable(-exponent);
+
+    public boolean isActive() {
+        return active;
+    }
+
+    public void apply(Particle p, double dt) {
+        // Calculate "optimal" velocity vector, working on components in place since this runs for every particle
+        double dx = p.stickyPos.x - p.pos.x;
+        double dy = p.stickyPos.y - p.pos.y;
+        double distanceSq = dx * dx + dy * dy;
+
+        // Partially normalize velocity vector
+        double scale;
+        if (fastMath) {
+            scale = force * pow.pow(distanceSq);
+        } else {
+            scale = force / Math.pow(distanceSq, exponent);
+        }
+
+        // Add a portion of the difference between desired velocity and current particle velocity
+        double blend = elasticity * dt;
+        p.vel.x += (dx * scale - p.vel.x) * blend;
+        p.vel.y += (dy * scale - p.vel.y) * blend;
+
+        updateSleep(p);
+    }
+
+    /**
+     * Put a particle to sleep once it has stayed at rest on its shape location long enough.
+     * @param p The particle to check.
+     */
+    public void updateSleep(Particle p) {
+        if (!sleeping) {
+            return;
+        }
+
+        // Work on components in place, since this runs for every awake particle
+        double dx = p.stickyPos.x - p.pos.x;
+        double dy = p.stickyPos.y - p.pos.y;
+        double speedSq = p.vel.x * p.vel.x + p.vel.y * p.vel.y;
+
+        // Particles near rest flicker in and out of it, so the count is updated without branching on it
+        boolean atRest = speedSq < sleepVelocity * sleepVelocity & dx * dx + dy * dy < sleepDistance * sleepDistance;
+        p.restFrames = atRest ? p.restFrames + 1 : 0;
+
+        if (p.restFrames >= sleepFrames) {
+            p.asleep = true;
+            p.vel.x = 0;
+            p.vel.y = 0;
+        }
+    }
+
+    public double getElasticity() {
+        return elasticity;
+    }
+
+    public boolean isSleeping() {
+        return sleeping;
+    }
+
+    public void setActive(boolean active) {
+        this.active = active;
+    }
+
+    public void setForce(double force) {
+        this.force = force;
+    }
+
+    public void setElasticity(double elasticity) {
+        this.elasticity = elasticity;
+    }
+
+    public void setExponent(double exponent) {
+        this.exponent = exponent;
+
+        // Rebuild the lookup table, since it is specialized to the exponent
+        if (exponent != -pow.getExponent()) {
+            pow = new PowTable(-exponent);
+        }
+    }
+
+    public void setFastMath(boolean fastMath) {
+        this.fastMath = fastMath;
+    }
+
+    public void setSleeping(boolean sleeping) {
+        this.sleeping = sleeping;
+    }
+
+    public void setSleepVelocity(double sleepVelocity) {
+        this.sleepVelocity = sleepVelocity;
+    }
+
+    public void setSleepDistance(double sleepDistance) {
+        this.sleepDistance = sleepDistance;
+    }
+
+    public void setSleepFrames(int sleepFrames) {
+        this.sleepFrames = sleepFrames;
+    }
+}
@@ -0,0 +1,181 @@
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.IntConsumer;
+
+/**
+ * Uniform grid over the world that buckets particle indices by position,
+ * for finding the particles within a region without visiting every particle.
+ */
+public class SpatialGrid {
+    private static final int SORT_BLOCK = 32;  // Indices sorted by insertion before merging
+
+    private double cellSize;
+    private int columns;
+    private int rows;
+
+    private int[] cellStart = new int[1];       // Offset of each cell's first index in cellIndices, plus a final end offset
+    private int[] cellIndices = new int[0];     // Particle indices, sorted by cell
+    private int[] particleCells = new int[0];   // Cell of each particle
+
+    /**
+     * Rebuild the grid from the current particle positions.
+     * @param particles The particles to index.
+     * @param worldWidth The width of the world.
+     * @param worldHeight The height of the world.
+     * @param minCellSize The smallest allowed cell size, usually the largest query radius.
+     */
+    public void build(List<Particle> particles, double worldWidth, double worldHeight, double minCellSize) {
+        int n = particles.size();
+
+        // Aim for about one particle per cell, but never smaller than the query radius
+        cellSize = Math.max(minCellSize, Math.sqrt(worldWidth * worldHeight / Math.max(1, n)));
+        columns = Math.max(1, (int)Math.ceil(worldWidth / cellSize));
+        rows = Math.max(1, (int)Math.ceil(worldHeight / cellSize));
+
+        if (cellStart.length != columns * rows + 1) {
+            cellStart = new int[columns * rows + 1];
+        } else {
+            Arrays.fill(cellStart, 0);
+        }
+
+        if (cellIndices.length < n) {
+            cellIndices = new int[n];
+            particleCells = new int[n];
+        }
+
+        // Counting sort of particle indices by cell, first counting each cell
+        for (int i = 0; i < n; i++) {
+            Particle p = particles.get(i);
+            int cell = cellOf(column(p.pos.x), row(p.pos.y));
+            particleCells[i] = cell;
+            cellStart[cell]++;
+        }
+
+        // Turn the counts into the end offset of each cell
+        for (int c = 1; c < columns * rows; c++) {
+            cellStart[c] += cellStart[c - 1];
+        }
+
+        // Filling back to front moves each offset to the start of its cell,
+        // and keeps indices ascending within each cell
+        for (int i = n - 1; i >= 0; i--) {
+            cellIndices[--cellStart[particleCells[i]]] = i;
+        }
+
+        cellStart[columns * rows] = n;
+    }
+
+    /**
+     * Visit the index of every particle in the cells overlapping a rectangle.
+     * Particles slightly outside the rectangle may also be visited.
+     * @param minX The left edge of the rectangle.
+     * @param minY The top edge of the rectangle.
+     * @param maxX The right edge of the rectangle.
+     * @param maxY The bottom edge of the rectangle.
+     * @param action The action to run for each particle index.
+     */
+    public void query(double minX, double minY, double maxX, double maxY, IntConsumer action) {
+        // Coordinates outside the world are clamped to the edge cells, like the particles in them
+        int minColumn = column(minX);
+        int maxColumn = column(maxX);
+        int minRow = row(minY);
+        int maxRow = row(maxY);
+
+        for (int r = minRow; r <= maxRow; r++) {
+            for (int c = minColumn; c <= maxColumn; c++) {
+                int cell = cellOf(c, r);
+
+                for (int k = cellStart[cell]; k < cellStart[cell + 1]; k++) {
+                    action.accept(cellIndices[k]);
+                }
+            }
+        }
+    }
+
+    /**
+     * Sort particle indices gathered by queries in ascending order without allocating. Each cell gives an
+     * ascending run, and Arrays.sort allocates a buffer to merge such runs, so blocks are sorted by insertion
+     * and then merged through a reused buffer instead.
+     * @param indices The indices to sort.
+     * @param count The number of indices.
+     * @param buffer The merge buffer from the last call.
+     * @return The merge buffer, grown if it was shorter than the indices.
+     */
+    public static int[] sortIndices(int[] indices, int count, int[] buffer) {
+        for (int from = 0; from < count; from += SORT_BLOCK) {
+            int to = Math.min(count, from + SORT_BLOCK);
+
+            for (int i = from + 1; i < to; i++) {
+                int index = indices[i];
+                int k = i - 1;
+                while (k >= from && indices[k] > index) {
+                    indices[k + 1] = indices[k];
+                    k--;
+                }
+                indices[k + 1] = index;
+            }
+        }
+
+        if (buffer.length < indices.length) {
+            buffer = new int[indices.length];
+        }
+
+        // Merge pairs of sorted blocks of doubling width, back and forth between the arrays
+        int[] src = indices;
+        int[] dst = buffer;
+        for (int width = SORT_BLOCK; width < count; width *= 2) {
+            for (int from = 0; from < count; from += 2 * width) {
+                int mid = Math.min(count, from + width);
+                int to = Math.min(count, from + 2 * width);
+                int left = from;
+                int right = mid;
+
+                for (int k = from; k < to; k++) {
+                    if (right >= to || (left < mid && src[left] <= src[right])) {
+                        dst[k] = src[left++];
+                    } else {
+                        dst[k] = src[right++];
+                    }
+                }
+            }
+
+            int[] merged = dst;
+            dst = src;
+            src = merged;
+        }
+
+        if (src != indices) {
+            System.arraycopy(src, 0, indices, 0, count);
+        }
+
+        return buffer;
+    }
+
+    /**
+     * Find the grid column of an x coordinate, clamped to the grid.
+     * @param x The x coordinate.
+     * @return The column.
+     */
+    private int column(double x) {
+        return Math.min(columns - 1, Math.max(0, (int)(x / cellSize)));
+    }
+
+    /**
+     * Find the grid row of a y coordinate, clamped to the grid.
+     * @param y The y coordinate.
+     * @return The row.
+     */
+    private int row(double y) {
+        return Math.min(rows - 1, Math.max(0, (int)(y / cellSize)));
+    }
+
+    /**
+     * Find the flat cell index of a column and row.
+     * @param column The column.
+     * @param row The row.
+     * @return The cell index.
+     */
+    private int cellOf(int column, int row) {
+        return row * columns + column;
+    }
+}
@@ -0,0 +1,45 @@
+/**
+ * Keeps particles inside the world, reflecting their velocity off the walls.
+ */
+public class WallReflection implements ForceModule {
+    private double width;               // Width of the world
+    private double height;              // Height of the world
+    private double elasticity = 0.999;  // How much velocity is kept on reflection (1 = fully elastic)
+
+    /**
+     * Constructor.
+     * @param width The width of the world.
+     * @param height The height of the world.
+     */
+    public WallReflection(double width, double height) {
+        this.width = width;
+        this.height = height;
+    }
+
+    public boolean isActive() {
+        return true;
+    }
+
+    public void apply(Particle p, double dt) {
+        // Check for x/y collisions, reversing velocity as needed
+        // and resetting positions
+        if (p.pos.x > width - 1 || p.pos.x < 0) {
+            p.pos.x = Math.min(width - 1, Math.max(0, p.pos.x));
+            p.vel.x *= -elasticity;
+        }
+
+        if (p.pos.y > height - 1 || p.pos.y < 0) {
+            p.pos.y = Math.min(height - 1, Math.max(0, p.pos.y));
+            p.vel.y *= -elasticity;
+        }
+    }
+
+    public void setSize(double width, double height) {
+        this.width = width;
+        this.height = height;
+    }
+
+    public void setElasticity(double elasticity) {
+        this.elasticity = elasticity;
+    }
+}